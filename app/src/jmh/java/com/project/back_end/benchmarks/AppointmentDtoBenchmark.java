@@ -0,0 +1,72 @@
+package com.project.back_end.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.project.back_end.DTO.AppointmentDTO;
+
+// Building AppointmentDTOs from projection rows (what the constructor expressions in
+// AppointmentRepository do per row) and serializing the list as the controllers return it
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppointmentDtoBenchmark {
+
+    @Param({ "10", "100", "1000", "10000", "100000" })
+    private int size;
+
+    private Object[][] rows;
+    private List<AppointmentDTO> appointments;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime start = Fixtures.DAY.atTime(8, 0);
+        rows = new Object[size][];
+        for (int i = 0; i < size; i++) {
+            rows[i] = new Object[] { (long) i + 1, (long) i % 50 + 1, "Doctor " + i % 50, (long) i + 1000,
+                    "Patient " + i, "patient" + i + "@example.com", "0123456789", "Street " + i,
+                    start.plusHours(i % 10).plusDays(i / 500), 0 };
+        }
+        appointments = map();
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Benchmark
+    public List<AppointmentDTO> map() {
+        List<AppointmentDTO> result = new ArrayList<>(rows.length);
+        for (Object[] row : rows) {
+            result.add(new AppointmentDTO((Long) row[0], (Long) row[1], (String) row[2], (Long) row[3],
+                    (String) row[4], (String) row[5], (String) row[6], (String) row[7], (LocalDateTime) row[8],
+                    (Integer) row[9]));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(appointments);
+    }
+}
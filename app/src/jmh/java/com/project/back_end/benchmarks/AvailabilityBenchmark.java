@@ -0,0 +1,101 @@
+package com.project.back_end.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.TimeSlot;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.Service;
+
+// getDoctorAvailability's free-slot computation and validateAppointment's slot check, on a warm
+// index over `size` doctors, plus the slot parsing the index does when a doctor is first loaded
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailabilityBenchmark {
+
+    @Param({ "10", "100", "1000", "10000", "100000" })
+    private int size;
+
+    private List<Doctor> doctors;
+    private DoctorService doctorService;
+    private Service service;
+    private Appointment[] appointments;
+
+    @Setup
+    public void setUp() {
+        doctors = Fixtures.doctors(size);
+        Map<Long, Doctor> byId = new HashMap<>();
+        doctors.forEach(doctor -> byId.put(doctor.getId(), doctor));
+
+        DoctorRepository doctorRepository = Fixtures.repository(DoctorRepository.class,
+                Map.of("findWithAvailableTimesById", args -> Optional.ofNullable(byId.get((Long) args[0]))));
+        AppointmentRepository appointmentRepository = Fixtures.repository(AppointmentRepository.class,
+                Map.of("findAppointmentTimesByDoctorIdAndAppointmentTimeBetween",
+                        args -> Fixtures.bookedTimes(byId.get((Long) args[0]))));
+        Fixtures.Services services = Fixtures.services(doctorRepository, appointmentRepository,
+                Fixtures.stub(PatientRepository.class));
+        doctorService = services.doctorService();
+        service = services.service();
+
+        appointments = new Appointment[doctors.size()];
+        for (int i = 0; i < doctors.size(); i++) {
+            Doctor doctor = doctors.get(i);
+            Appointment appointment = new Appointment();
+            appointment.setDoctor(doctor);
+            appointment.setAppointmentTime(Fixtures.DAY.atTime(8 + i % 10, 0));
+            appointments[i] = appointment;
+            // Warm the index so the benchmarks measure the in-memory path
+            doctorService.getDoctorAvailability(doctor.getId(), Fixtures.DAY);
+        }
+    }
+
+    @Benchmark
+    public List<String> getDoctorAvailability() {
+        Doctor doctor = doctors.get(ThreadLocalRandom.current().nextInt(doctors.size()));
+        return doctorService.getDoctorAvailability(doctor.getId(), Fixtures.DAY);
+    }
+
+    @Benchmark
+    public int validateAppointment() {
+        return service.validateAppointment(appointments[ThreadLocalRandom.current().nextInt(appointments.length)]);
+    }
+
+    @Benchmark
+    public int[] parseSlots() {
+        Doctor doctor = doctors.get(ThreadLocalRandom.current().nextInt(doctors.size()));
+        return TimeSlot.parseAll(doctor.getAvailableTimes());
+    }
+
+    @Benchmark
+    public int slotOfAppointment() {
+        LocalDateTime time = appointments[ThreadLocalRandom.current().nextInt(appointments.length)]
+                .getAppointmentTime();
+        return TimeSlot.ofAppointment(time);
+    }
+}
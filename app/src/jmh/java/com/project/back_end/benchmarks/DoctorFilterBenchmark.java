@@ -0,0 +1,65 @@
+package com.project.back_end.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.services.DoctorNameIndex;
+import com.project.back_end.services.DoctorService;
+
+// In-memory day part filtering and the name index lookup the SQL name filters start from
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DoctorFilterBenchmark {
+
+    @Param({ "10", "100", "1000", "10000", "100000" })
+    private int size;
+
+    private List<Doctor> doctors;
+    private DoctorService doctorService;
+    private DoctorNameIndex doctorNameIndex;
+
+    @Setup
+    public void setUp() {
+        doctors = Fixtures.doctors(size);
+        List<Object[]> names = doctors.stream().map(doc -> new Object[] { doc.getId(), doc.getName() }).toList();
+        Fixtures.Services services = Fixtures.services(
+                Fixtures.repository(DoctorRepository.class, Map.of("findIdsAndNames", args -> names)),
+                Fixtures.stub(AppointmentRepository.class), Fixtures.stub(PatientRepository.class));
+        doctorNameIndex = services.doctorNameIndex();
+        doctorService = services.doctorService();
+        doctorNameIndex.warmUp();
+        doctors.forEach(Doctor::getDayParts);
+    }
+
+    @Benchmark
+    public List<Doctor> filterDoctorByTime() {
+        return doctorService.filterDoctorByTime(doctors, "PM");
+    }
+
+    @Benchmark
+    public Set<Long> searchName() {
+        return doctorNameIndex.search("doctor 12");
+    }
+}
@@ -0,0 +1,129 @@
+package com.project.back_end.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.AdminRepository;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.services.AvailabilityIndex;
+import com.project.back_end.services.DoctorDirectoryCache;
+import com.project.back_end.services.DoctorNameIndex;
+import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.DoctorVersions;
+import com.project.back_end.services.PatientService;
+import com.project.back_end.services.RequestPrincipal;
+import com.project.back_end.services.Service;
+import com.project.back_end.services.TokenService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Synthetic data and repository stand-ins for the benchmarks; nothing here touches a database
+final class Fixtures {
+
+    static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+    static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private static final String[] SPECIALTIES = { "Cardiologist", "Dermatologist", "Neurologist", "Pediatrician" };
+
+    private Fixtures() {
+    }
+
+    // The service layer wired the way Spring wires it
+    record Services(TokenService tokenService, AvailabilityIndex availabilityIndex, DoctorNameIndex doctorNameIndex,
+            DoctorService doctorService, Service service) {
+    }
+
+    // Every service over the given repositories; pass stub(...) for one a benchmark never reaches, so
+    // an unexpected call fails loudly. Background loads run on the calling thread.
+    static Services services(DoctorRepository doctorRepository, AppointmentRepository appointmentRepository,
+            PatientRepository patientRepository) {
+        AdminRepository adminRepository = stub(AdminRepository.class);
+        TokenService tokenService = new TokenService(SECRET, adminRepository, doctorRepository, patientRepository);
+        DoctorVersions doctorVersions = new DoctorVersions();
+        AvailabilityIndex availabilityIndex = new AvailabilityIndex(doctorRepository, appointmentRepository,
+                doctorVersions);
+        DoctorNameIndex doctorNameIndex = new DoctorNameIndex(doctorRepository, Runnable::run);
+        DoctorDirectoryCache doctorDirectoryCache = new DoctorDirectoryCache(doctorRepository, Runnable::run,
+                new SimpleMeterRegistry(), doctorVersions);
+        DoctorService doctorService = new DoctorService(doctorRepository, appointmentRepository, tokenService,
+                availabilityIndex, doctorDirectoryCache, doctorNameIndex);
+        RequestPrincipal requestPrincipal = new RequestPrincipal(tokenService);
+        PatientService patientService = new PatientService(patientRepository, appointmentRepository,
+                requestPrincipal, stub(PlatformTransactionManager.class), new ObjectMapper(), doctorNameIndex);
+        Service service = new Service(tokenService, adminRepository, doctorService, patientRepository,
+                patientService, availabilityIndex, requestPrincipal);
+        return new Services(tokenService, availabilityIndex, doctorNameIndex, doctorService, service);
+    }
+
+    // Every doctor offers a random subset of the hourly slots between 08:00 and 18:00
+    static List<Doctor> doctors(int count) {
+        Random random = new Random(42);
+        List<Doctor> doctors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setId((long) i + 1);
+            doctor.setName("Doctor " + i);
+            doctor.setSpecialty(SPECIALTIES[i % SPECIALTIES.length]);
+            doctor.setEmail("doctor" + i + "@example.com");
+            doctor.setPhone("0123456789");
+            List<String> times = new ArrayList<>();
+            for (int hour = 8; hour < 18; hour++) {
+                if (random.nextInt(3) != 0) {
+                    times.add(String.format("%02d:00-%02d:00", hour, hour + 1));
+                }
+            }
+            doctor.setAvailableTimes(times);
+            doctor.refreshFacets();
+            doctors.add(doctor);
+        }
+        return doctors;
+    }
+
+    // About a third of each doctor's slots on DAY are booked
+    static List<LocalDateTime> bookedTimes(Doctor doctor) {
+        List<LocalDateTime> booked = new ArrayList<>();
+        List<String> times = doctor.getAvailableTimes();
+        for (int i = 0; i < times.size(); i += 3) {
+            booked.add(DAY.atTime(Integer.parseInt(times.get(i).substring(0, 2)), 0));
+        }
+        return booked;
+    }
+
+    static <T> T stub(Class<T> type) {
+        return repository(type, Map.of());
+    }
+
+    // A repository implementation answering only the named methods
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName() + " stub";
+                default:
+                    Function<Object[], Object> answer = answers.get(method.getName());
+                    if (answer == null) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return answer.apply(args);
+            }
+        });
+    }
+}
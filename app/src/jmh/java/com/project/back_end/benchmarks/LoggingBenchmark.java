@@ -0,0 +1,142 @@
+package com.project.back_end.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+
+// What PatientService.filterByDoctor costs a request thread for its logging, before and after
+// System.out was replaced: the old println per value and per doctor, against the single log.debug
+// line that replaced them, both at the default INFO level (a level check) and with DEBUG on (an
+// enqueue to the AsyncAppender of logback-spring.xml, encoded as ECS JSON on its own thread).
+// Several threads log at once, as requests do; both outputs go to temporary files.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class LoggingBenchmark {
+
+    // Appointments the filter matched, i.e. doctor names the old code printed
+    @Param({ "1", "10", "50" })
+    private int size;
+
+    private final String name = "smith";
+    private final Long patientId = 42L;
+    private List<String> doctorNames;
+
+    private File stdoutFile;
+    private PrintStream stdout;
+
+    private File logFile;
+    private LoggerContext loggerContext;
+    private Logger atInfo;
+    private Logger atDebug;
+
+    @Setup
+    public void setUp() throws IOException {
+        doctorNames = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            doctorNames.add("Doctor " + i);
+        }
+
+        // Stands in for System.out: a synchronized, autoflushing PrintStream
+        stdoutFile = File.createTempFile("stdout", ".log");
+        stdout = new PrintStream(new FileOutputStream(stdoutFile), true);
+
+        logFile = File.createTempFile("ecs", ".log");
+        loggerContext = new LoggerContext();
+        loggerContext.putObject(Environment.class.getName(), new StandardEnvironment());
+
+        StructuredLogEncoder encoder = new StructuredLogEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setFormat("ecs");
+        encoder.setCharset(StandardCharsets.UTF_8);
+        encoder.start();
+
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(loggerContext);
+        file.setFile(logFile.getAbsolutePath());
+        file.setEncoder(encoder);
+        file.start();
+
+        // As in logback-spring.xml, so DEBUG events past 80% of the queue are dropped, not waited for
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(loggerContext);
+        async.setQueueSize(8192);
+        async.setIncludeCallerData(false);
+        async.addAppender(file);
+        async.start();
+
+        ch.qos.logback.classic.Logger root = loggerContext.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(async);
+        atInfo = loggerContext.getLogger("benchmark.info");
+        ch.qos.logback.classic.Logger debug = loggerContext.getLogger("benchmark.debug");
+        debug.setLevel(Level.DEBUG);
+        atDebug = debug;
+    }
+
+    @TearDown
+    public void tearDown() {
+        loggerContext.stop();
+        stdout.close();
+        stdoutFile.delete();
+        logFile.delete();
+    }
+
+    // The prints filterByDoctor made before, on every request
+    @Benchmark
+    public void systemOutPrintln() {
+        stdout.println("Startingur query");
+        stdout.println(name);
+        stdout.println(patientId);
+        stdout.println("HI");
+        stdout.println(doctorNames.size());
+        for (String doctorName : doctorNames) {
+            stdout.println("" + doctorName);
+        }
+    }
+
+    @Benchmark
+    public void debugLineAtInfoLevel() {
+        atInfo.debug("Doctor filter '{}' matched {} appointments of patient {}", name, doctorNames.size(),
+                patientId);
+    }
+
+    @Benchmark
+    public void debugLineAtDebugLevel() {
+        atDebug.debug("Doctor filter '{}' matched {} appointments of patient {}", name, doctorNames.size(),
+                patientId);
+    }
+}
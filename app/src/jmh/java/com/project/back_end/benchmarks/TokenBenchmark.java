@@ -0,0 +1,73 @@
+package com.project.back_end.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.services.TokenService;
+
+// Token generation and validation. `size` distinct tokens are cycled through; past the token cache
+// capacity most validations are cold (signature check and account lookup) instead of cache hits.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenBenchmark {
+
+    @Param({ "10", "100", "1000", "10000", "100000" })
+    private int size;
+
+    private TokenService tokenService;
+    private String[] tokens;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PatientRepository patientRepository = Fixtures.repository(PatientRepository.class,
+                Map.of("existsById", args -> true));
+        tokenService = Fixtures.services(Fixtures.stub(DoctorRepository.class),
+                Fixtures.stub(AppointmentRepository.class), patientRepository).tokenService();
+        tokens = new String[size];
+        for (int i = 0; i < size; i++) {
+            tokens[i] = tokenService.generateToken("patient" + i + "@example.com", "patient", (long) i + 1);
+        }
+    }
+
+    private String nextToken() {
+        String token = tokens[next];
+        next = next + 1 == tokens.length ? 0 : next + 1;
+        return token;
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenService.generateToken("patient@example.com", "patient", 1L);
+    }
+
+    @Benchmark
+    public String extractEmail() {
+        return tokenService.extractEmail(nextToken());
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenService.validateToken(nextToken(), "patient");
+    }
+}
@@ -0,0 +1,31 @@
+package com.project.back_end.DTO;
+
+import java.time.LocalDateTime;
+
+// Keyset position in an appointment list ordered by (appointmentTime, id).
+// Travels to the client as "2025-05-01T10:00_42" (see toString/parse).
+public record AppointmentCursor(LocalDateTime appointmentTime, Long id) {
+
+    public static AppointmentCursor after(AppointmentDTO last) {
+        return new AppointmentCursor(last.getAppointmentTime(), last.getId());
+    }
+
+    // Returns null for a missing cursor, throws IllegalArgumentException for a malformed one
+    public static AppointmentCursor parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            int separator = value.lastIndexOf('_');
+            return new AppointmentCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + value, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return appointmentTime + "_" + id;
+    }
+}
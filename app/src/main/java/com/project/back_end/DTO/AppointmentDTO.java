@@ -4,6 +4,8 @@ import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class AppointmentDTO {
 
     private Long id;
@@ -28,6 +30,10 @@ public class AppointmentDTO {
     private LocalTime appointmentTimeOnly;
     private LocalDateTime endTime;
 
+    // Only filled in when the caller asks for it, see AppointmentService.getAppointment
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean hasPrescription;
+
     // Constructor
     public AppointmentDTO(Long id, Long doctorId,String doctorName, Long patientId, String patientName,
                           String patientEmail, String patientPhone, String patientAddress,
@@ -102,4 +108,12 @@ public class AppointmentDTO {
     public LocalDateTime getEndTime() {
         return endTime;
     }
+
+    public Boolean getHasPrescription() {
+        return hasPrescription;
+    }
+
+    public void setHasPrescription(Boolean hasPrescription) {
+        this.hasPrescription = hasPrescription;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+package com.project.back_end.DTO;
+
+// Account behind a verified token: role is "admin", "doctor" or "patient", and email is the
+// token subject (the username for admins)
+public record AuthenticatedPrincipal(String role, Long id, String email) {
+}
@@ -0,0 +1,17 @@
+package com.project.back_end.DTO;
+
+import java.util.List;
+
+import com.project.back_end.models.Doctor;
+
+// What a doctor listing shows, the same JSON as a Doctor without its write-only password.
+// Immutable, so one copy can be shared by every request reading the directory cache.
+public record DoctorDTO(Long id, String name, String specialty, String email, String phone,
+        List<String> availableTimes) {
+
+    public static DoctorDTO from(Doctor doctor) {
+        List<String> availableTimes = doctor.getAvailableTimes();
+        return new DoctorDTO(doctor.getId(), doctor.getName(), doctor.getSpecialty(), doctor.getEmail(),
+                doctor.getPhone(), availableTimes == null ? List.of() : List.copyOf(availableTimes));
+    }
+}
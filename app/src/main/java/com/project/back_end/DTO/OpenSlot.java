@@ -0,0 +1,8 @@
+package com.project.back_end.DTO;
+
+import java.time.LocalDateTime;
+
+// A free slot of a doctor: appointmentTime is the start to book, slot the doctor's "HH:mm-HH:mm" entry
+public record OpenSlot(Long doctorId, String doctorName, String specialty, LocalDateTime appointmentTime,
+        String slot) {
+}
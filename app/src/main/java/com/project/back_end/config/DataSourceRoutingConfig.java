@@ -0,0 +1,74 @@
+package com.project.back_end.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+// Primary/replica routing, on with app.datasource.routing.enabled=true. The primary pool keeps the
+// spring.datasource.* and spring.datasource.hikari.* settings; each URL in app.datasource.replica.urls
+// gets its own pool configured by app.datasource.replica.hikari.*, with the primary's credentials
+// unless app.datasource.replica.username/password are set.
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public RoutingDataSource routingDataSource(HikariDataSource primaryDataSource, DataSourceProperties properties,
+            Environment environment) {
+        Binder binder = Binder.get(environment);
+        List<String> urls = binder.bind("app.datasource.replica.urls", Bindable.listOf(String.class))
+                .orElse(List.of());
+        String username = binder.bind("app.datasource.replica.username", String.class)
+                .orElse(properties.determineUsername());
+        String password = binder.bind("app.datasource.replica.password", String.class)
+                .orElse(properties.determinePassword());
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url)
+                    .username(username)
+                    .password(password)
+                    .build();
+            binder.bind("app.datasource.replica.hikari", Bindable.ofInstance(replica));
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new RoutingDataSource(primaryDataSource, replicas);
+    }
+
+    // What JPA, JdbcTemplate and Flyway use; connections are only taken from a pool at the first statement
+    @Bean
+    @Primary
+    public DataSource dataSource(RoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public ReplicaReadAspect replicaReadAspect() {
+        return new ReplicaReadAspect();
+    }
+}
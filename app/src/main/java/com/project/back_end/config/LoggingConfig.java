@@ -0,0 +1,43 @@
+package com.project.back_end.config;
+
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.MDC;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.CompositeTaskDecorator;
+
+// Work handed to applicationTaskExecutor, e.g. the MySQL/Mongo fan-out, logs with the correlation id
+// of the request that submitted it, and its queries count towards that request's QueryBudget.
+// Spring Boot only applies a TaskDecorator bean when there is exactly one, hence the composite.
+@Configuration
+public class LoggingConfig {
+
+    @Bean
+    public TaskDecorator taskDecorator() {
+        return new CompositeTaskDecorator(List.<TaskDecorator>of(LoggingConfig::withMdc, QueryCounter::propagate));
+    }
+
+    private static Runnable withMdc(Runnable task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            setContext(context);
+            try {
+                task.run();
+            } finally {
+                setContext(previous);
+            }
+        };
+    }
+
+    private static void setContext(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
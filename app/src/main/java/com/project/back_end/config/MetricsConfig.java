@@ -0,0 +1,37 @@
+package com.project.back_end.config;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.HibernateMetrics;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Hibernate statistics (statements, queries, entity loads, cache hits) as hibernate.* meters.
+// Service timers come from @Timed, repository and Mongo command timers from Spring Boot.
+// SQL statements and Mongo commands are also counted per request for QueryMetricsInterceptor.
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder hibernateMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> new HibernateMetrics(entityManagerFactory.unwrap(SessionFactory.class),
+                "entityManagerFactory", Tags.empty()).bindTo(registry);
+    }
+
+    // static, so the post-processor is registered before the DataSource it wraps is created
+    @Bean
+    public static BeanPostProcessor sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCommandCounter() {
+        return settings -> settings.addCommandListener(new MongoCommandCounter());
+    }
+}
@@ -0,0 +1,13 @@
+package com.project.back_end.config;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+
+// Registered on the Mongo client by MetricsConfig; sees every command the driver sends
+public class MongoCommandCounter implements CommandListener {
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        QueryCounter.mongoCommand();
+    }
+}
@@ -0,0 +1,39 @@
+package com.project.back_end.config;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.project.back_end.models.Prescription;
+
+// Spring Boot leaves Mongo auto-index creation off, so the indexes declared with @Indexed
+// on the documents are created here once the application has started. Startup fails when they
+// can't be: PrescriptionService.savePrescription relies on the unique appointmentId index to
+// reject a second prescription, and has no check of its own.
+@Configuration
+public class MongoIndexConfig {
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    public MongoIndexConfig(MongoTemplate mongoTemplate, MongoMappingContext mappingContext) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(Prescription.class);
+            new MongoPersistentEntityIndexResolver(mappingContext).resolveIndexFor(Prescription.class)
+                    .forEach(indexOps::ensureIndex);
+        } catch (Exception e) {
+            // e.g. duplicate appointmentIds already stored, which have to be merged by hand first
+            throw new IllegalStateException("Could not create the prescription indexes", e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.project.back_end.config;
+
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.project.back_end.services.RequestPrincipal;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Resolves the {token} path variable, or the bearer token of the Authorization header on the
+// endpoints without one, into the request's principal before the controller runs.
+// The role comes from the {user} path variable when the endpoint has one, otherwise from the token.
+// Rejecting invalid tokens stays with the controllers, this only fills RequestPrincipal.
+@Component
+public class PrincipalInterceptor implements HandlerInterceptor {
+
+    private final RequestPrincipal requestPrincipal;
+
+    public PrincipalInterceptor(RequestPrincipal requestPrincipal) {
+        this.requestPrincipal = requestPrincipal;
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull Object handler) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> pathVariables = (Map<String, String>) request
+                .getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (pathVariables == null) {
+            return true;
+        }
+        String token = pathVariables.get("token");
+        if (token == null) {
+            token = RequestPrincipal.bearerToken(request.getHeader(HttpHeaders.AUTHORIZATION));
+        }
+        if (token == null) {
+            return true;
+        }
+        String user = pathVariables.get("user");
+        if (user != null) {
+            requestPrincipal.resolve(token, user);
+        } else {
+            requestPrincipal.resolve(token);
+        }
+        return true;
+    }
+}
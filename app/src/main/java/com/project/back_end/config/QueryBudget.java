@@ -0,0 +1,21 @@
+package com.project.back_end.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Most SQL statements and Mongo commands one call may issue, on its own thread or in the tasks it
+// hands to applicationTaskExecutor.
+// On a controller method it is checked by QueryMetricsInterceptor for every request (logged, or
+// failed with app.query-budget.enforce=true); on a test method by QueryBudgetExtension.
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface QueryBudget {
+
+    int sql() default 0;
+
+    int mongo() default 0;
+}
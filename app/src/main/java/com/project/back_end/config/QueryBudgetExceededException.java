@@ -0,0 +1,8 @@
+package com.project.back_end.config;
+
+public class QueryBudgetExceededException extends RuntimeException {
+
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
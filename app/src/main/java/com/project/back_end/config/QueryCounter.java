@@ -0,0 +1,106 @@
+package com.project.back_end.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Per-call count of the SQL statements and Mongo commands issued on the current thread, and by the
+// tasks it hands to applicationTaskExecutor (see propagate). Started and stopped by
+// QueryMetricsInterceptor around each request (and by tests); calls can nest, an inner count is
+// added to the outer one when it stops. Work outside a count, e.g. startup, is not counted, and
+// neither is a task that is still running when the count that submitted it has stopped.
+public final class QueryCounter {
+
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    public static final class Counts {
+
+        private final Counts outer;
+        private final int sqlLimit;
+        // Atomic, as the submitting thread and its executor tasks count at the same time
+        private final AtomicInteger sqlStatements = new AtomicInteger();
+        private final AtomicInteger mongoCommands = new AtomicInteger();
+        private volatile boolean stopped;
+
+        private Counts(Counts outer, int sqlLimit) {
+            this.outer = outer;
+            this.sqlLimit = sqlLimit;
+        }
+
+        public int sqlStatements() {
+            return sqlStatements.get();
+        }
+
+        public int mongoCommands() {
+            return mongoCommands.get();
+        }
+    }
+
+    private QueryCounter() {
+    }
+
+    public static void start() {
+        start(-1);
+    }
+
+    // The statement that takes the count past sqlLimit fails with QueryBudgetExceededException;
+    // a negative limit only counts
+    public static void start(int sqlLimit) {
+        CURRENT.set(new Counts(CURRENT.get(), sqlLimit));
+    }
+
+    // Returns the counts since the matching start(), or null if counting wasn't started on this thread
+    public static Counts stop() {
+        Counts counts = CURRENT.get();
+        if (counts == null) {
+            return null;
+        }
+        counts.stopped = true;
+        if (counts.outer != null) {
+            counts.outer.sqlStatements.addAndGet(counts.sqlStatements.get());
+            counts.outer.mongoCommands.addAndGet(counts.mongoCommands.get());
+            CURRENT.set(counts.outer);
+        } else {
+            CURRENT.remove();
+        }
+        return counts;
+    }
+
+    // A TaskDecorator (see LoggingConfig): the task counts towards, and is held to the budget of,
+    // the count active where it was submitted
+    public static Runnable propagate(Runnable task) {
+        Counts counts = CURRENT.get();
+        if (counts == null) {
+            return task;
+        }
+        return () -> {
+            Counts previous = CURRENT.get();
+            CURRENT.set(counts);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    static void sqlStatement() {
+        Counts counts = CURRENT.get();
+        if (counts != null && !counts.stopped) {
+            int statements = counts.sqlStatements.incrementAndGet();
+            if (counts.sqlLimit >= 0 && statements > counts.sqlLimit) {
+                throw new QueryBudgetExceededException(
+                        "SQL statement " + statements + " exceeds the budget of " + counts.sqlLimit);
+            }
+        }
+    }
+
+    static void mongoCommand() {
+        Counts counts = CURRENT.get();
+        if (counts != null && !counts.stopped) {
+            counts.mongoCommands.incrementAndGet();
+        }
+    }
+}
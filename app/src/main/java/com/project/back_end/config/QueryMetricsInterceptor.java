@@ -0,0 +1,87 @@
+package com.project.back_end.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Records how many SQL statements and Mongo commands each request issued, per URI pattern, as the
+// http.server.requests.sql.statements and http.server.requests.mongo.commands distributions, and
+// checks the handler's @QueryBudget. Over-budget requests are logged and counted in
+// http.server.requests.query.budget.exceeded; with app.query-budget.enforce=true the SQL statement
+// that goes over the budget fails instead.
+@Component
+public class QueryMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryMetricsInterceptor.class);
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enforce;
+
+    public QueryMetricsInterceptor(MeterRegistry meterRegistry,
+            @Value("${app.query-budget.enforce:false}") boolean enforce) {
+        this.meterRegistry = meterRegistry;
+        this.enforce = enforce;
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull Object handler) {
+        QueryBudget budget = budgetOf(handler);
+        QueryCounter.start(enforce && budget != null ? budget.sql() : -1);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull Object handler, @Nullable Exception ex) {
+        QueryCounter.Counts counts = QueryCounter.stop();
+        if (counts == null) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        summary("http.server.requests.sql.statements", "SQL statements issued while handling one request", uri)
+                .record(counts.sqlStatements());
+        summary("http.server.requests.mongo.commands", "Mongo commands issued while handling one request", uri)
+                .record(counts.mongoCommands());
+
+        QueryBudget budget = budgetOf(handler);
+        if (budget != null && (counts.sqlStatements() > budget.sql() || counts.mongoCommands() > budget.mongo())) {
+            meterRegistry.counter("http.server.requests.query.budget.exceeded", "uri", uri).increment();
+            log.warn("Query budget exceeded for {} {}: {}/{} SQL statements, {}/{} Mongo commands",
+                    request.getMethod(), uri, counts.sqlStatements(), budget.sql(), counts.mongoCommands(),
+                    budget.mongo());
+        }
+    }
+
+    // The request thread is released while a streaming body is written; nothing to record for it
+    @Override
+    public void afterConcurrentHandlingStarted(@NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response, @NonNull Object handler) {
+        QueryCounter.stop();
+    }
+
+    private DistributionSummary summary(String name, String description, String uri) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("uri", uri)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    private static QueryBudget budgetOf(Object handler) {
+        return handler instanceof HandlerMethod method ? method.getMethodAnnotation(QueryBudget.class) : null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.project.back_end.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.transaction.annotation.Transactional;
+
+// Lets the @Transactional(readOnly = true) service methods read from a replica. The read-only
+// transactions Spring Data opens around single repository calls (principal lookups, the availability
+// loads behind booking validation, logins right after registering) stay on the primary, so they see
+// the caller's own writes.
+@Aspect
+public class ReplicaReadAspect {
+
+    @Around("within(com.project.back_end.services..*) && @annotation(transactional)")
+    public Object route(ProceedingJoinPoint joinPoint, Transactional transactional) throws Throwable {
+        if (!transactional.readOnly()) {
+            return joinPoint.proceed();
+        }
+        boolean previous = RoutingDataSource.startReplicaReads();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RoutingDataSource.restoreReplicaReads(previous);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.project.back_end.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+// Hands out replica connections, round-robin, inside the read-only transactions the services declare
+// (marked by ReplicaReadAspect) and primary connections everywhere else. Used behind a
+// LazyConnectionDataSourceProxy, so the choice is made at the first statement, once the transaction
+// is set up.
+public class RoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> REPLICA_READS = new ThreadLocal<>();
+
+    private final List<HikariDataSource> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public RoutingDataSource(DataSource primary, List<HikariDataSource> replicas) {
+        this.replicas = List.copyOf(replicas);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < this.replicas.size(); i++) {
+            targets.put(i, this.replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty() || REPLICA_READS.get() == null
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        return Math.floorMod(next.getAndIncrement(), replicas.size());
+    }
+
+    // Returns the previous state for restoreReplicaReads, calls can nest
+    static boolean startReplicaReads() {
+        boolean previous = REPLICA_READS.get() != null;
+        REPLICA_READS.set(Boolean.TRUE);
+        return previous;
+    }
+
+    static void restoreReplicaReads(boolean previous) {
+        if (!previous) {
+            REPLICA_READS.remove();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
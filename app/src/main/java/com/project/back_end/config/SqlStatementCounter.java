@@ -0,0 +1,82 @@
+package com.project.back_end.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+// Registered by MetricsConfig; wraps the "dataSource" bean, the one JPA, JdbcTemplate and Flyway use,
+// so every statement executed through it is counted: Hibernate's queries as well as the JdbcTemplate
+// batches of AppointmentBatchRepository. A JDBC batch counts once, as it is one round trip; a row by
+// row fallback counts every row. Counted before the statement runs, so an exceeded budget stops it.
+public class SqlStatementCounter implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        // The routing config's pools sit behind its "dataSource" and would count every statement twice
+        if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+            return new CountingDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    static class CountingDataSource extends DelegatingDataSource {
+
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(super.getConnection(), Connection.class);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(super.getConnection(username, password), Connection.class);
+        }
+    }
+
+    // Connections hand out counting statements; statements count their execute* calls
+    private static <T> T counting(T target, Class<T> type) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (target instanceof Statement && method.getName().startsWith("execute")) {
+                QueryCounter.sqlStatement();
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            if (target instanceof Connection && result instanceof Statement statement) {
+                return countingStatement(statement, method.getReturnType());
+            }
+            return result;
+        };
+        return type.cast(Proxy.newProxyInstance(SqlStatementCounter.class.getClassLoader(), new Class<?>[] { type },
+                handler));
+    }
+
+    // Statement, PreparedStatement or CallableStatement, as declared by the Connection method
+    @SuppressWarnings("unchecked")
+    private static Statement countingStatement(Statement statement, Class<?> declared) {
+        return counting(statement, (Class<Statement>) declared);
+    }
+}
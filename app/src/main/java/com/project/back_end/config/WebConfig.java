@@ -5,11 +5,20 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull; 
 
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final PrincipalInterceptor principalInterceptor;
+    private final QueryMetricsInterceptor queryMetricsInterceptor;
+
+    public WebConfig(PrincipalInterceptor principalInterceptor, QueryMetricsInterceptor queryMetricsInterceptor) {
+        this.principalInterceptor = principalInterceptor;
+        this.queryMetricsInterceptor = queryMetricsInterceptor;
+    }
+
     @Override
     public void addCorsMappings(@NonNull CorsRegistry registry) {
         // Allow CORS for all endpoints
@@ -18,4 +27,11 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedMethods("GET", "POST", "PUT", "DELETE")  // Specify allowed methods
                 .allowedHeaders("*");  // You can restrict headers if needed
     }
+
+    @Override
+    public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        // First, so the statements issued while resolving the principal are counted too
+        registry.addInterceptor(queryMetricsInterceptor);
+        registry.addInterceptor(principalInterceptor);
+    }
 }
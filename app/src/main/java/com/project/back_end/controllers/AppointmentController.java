@@ -2,25 +2,33 @@ package com.project.back_end.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 
+import com.project.back_end.config.QueryBudget;
 import com.project.back_end.models.Appointment;
 import com.project.back_end.services.AppointmentService;
 import com.project.back_end.services.Service;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/appointments")
 public class AppointmentController {
 
+    // Largest batch the bulk endpoints accept in one request
+    private static final int MAX_BULK_SIZE = 500;
+
     private final AppointmentService appointmentService;
     private final Service service;
 
@@ -31,7 +39,9 @@ public class AppointmentController {
     }
 
     @GetMapping("/{date}/{patientName}/{token}")
-    public ResponseEntity<Map <String,Object>> getAppointments(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date, @PathVariable String patientName,@PathVariable String token)
+    @QueryBudget(sql = 2, mongo = 1)
+    public ResponseEntity<Map <String,Object>> getAppointments(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date, @PathVariable String patientName,@PathVariable String token,
+            @RequestParam(defaultValue = "false") boolean withPrescriptionFlag)
     {
         Map<String, Object> map = new HashMap<>();
         ResponseEntity<Map<String,String>> tempMap= service.validateToken(token, "doctor");
@@ -39,12 +49,24 @@ public class AppointmentController {
             map.putAll(tempMap.getBody());
             return new ResponseEntity<>(map, tempMap.getStatusCode());
         }
-        map=appointmentService.getAppointment(patientName, date, token);
+        map=appointmentService.getAppointment(patientName, date, token, withPrescriptionFlag);
         return ResponseEntity.status(HttpStatus.OK).body(map);
     }
+
+    // Same, with the token in an "Authorization: Bearer" header, see BearerToken
+    @GetMapping("/{date}/{patientName}")
+    @QueryBudget(sql = 2, mongo = 1)
+    public ResponseEntity<Map<String,Object>> getAppointmentsWithHeader(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @PathVariable String patientName,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(defaultValue = "false") boolean withPrescriptionFlag, HttpServletResponse response)
+    {
+        return getAppointments(date, patientName, BearerToken.from(authorization, response), withPrescriptionFlag);
+    }
     
 
     @PostMapping("/{token}")
+    @QueryBudget(sql = 5)
     public ResponseEntity<Map<String, String>> bookAppointment(@RequestBody @Valid Appointment appointment,
             @PathVariable String token) {
 
@@ -54,24 +76,22 @@ public class AppointmentController {
         }
 
         Map<String, String> response = new HashMap<>();
-        int out = service.validateAppointment(appointment);
+        int out = appointmentService.bookAppointment(appointment);
         if (out == 1) {
-            int res = appointmentService.bookAppointment(appointment);
-            if (res == 1) {
-                response.put("message", "Appointment Booked Successfully");
-                return ResponseEntity.status(HttpStatus.CREATED).body(response); // 201 Created
-
-            }
-            response.put("message", "Internal Server Error");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response); // 409 Conflict
+            response.put("message", "Appointment Booked Successfully");
+            return ResponseEntity.status(HttpStatus.CREATED).body(response); // 201 Created
 
         } else if (out == -1) {
             response.put("message", "Invalid doctor id");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+
+        } else if (out == -2) {
+            response.put("message", "Internal Server Error");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
 
         response.put("message", "Appointment already booked for given time or Doctor not available");
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response); // 409 Conflict
 
     }
 
@@ -85,6 +105,45 @@ public class AppointmentController {
         return appointmentService.updateAppointment(appointment);   
     }
 
+    // Books every appointment in the body for the token's patient; the response carries one result
+    // per item, in order. The items are not @Valid: an incomplete or past item gets its own -3 result
+    // from the service instead of failing the whole batch.
+    @PostMapping("/bulk/{token}")
+    public ResponseEntity<Map<String, Object>> bookAppointments(@RequestBody List<Appointment> appointments,
+            @PathVariable String token) {
+        Map<String, Object> map = new HashMap<>();
+        if (appointments.size() > MAX_BULK_SIZE) {
+            map.put("message", "At most " + MAX_BULK_SIZE + " appointments per request");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
+        }
+        ResponseEntity<Map<String, String>> tempMap = service.validateToken(token, "patient");
+        if (!tempMap.getBody().isEmpty()) {
+            map.putAll(tempMap.getBody());
+            return new ResponseEntity<>(map, tempMap.getStatusCode());
+        }
+        int[] out = appointmentService.bookAppointments(appointments, token);
+        return ResponseEntity.status(HttpStatus.OK).body(bulkResult(out, HttpStatus.CREATED,
+                "Appointment Booked Successfully"));
+    }
+
+    @PutMapping("/bulk/{token}")
+    public ResponseEntity<Map<String, Object>> updateAppointments(@RequestBody List<Appointment> appointments,
+            @PathVariable String token) {
+        Map<String, Object> map = new HashMap<>();
+        if (appointments.size() > MAX_BULK_SIZE) {
+            map.put("message", "At most " + MAX_BULK_SIZE + " appointments per request");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
+        }
+        ResponseEntity<Map<String, String>> tempMap = service.validateToken(token, "patient");
+        if (!tempMap.getBody().isEmpty()) {
+            map.putAll(tempMap.getBody());
+            return new ResponseEntity<>(map, tempMap.getStatusCode());
+        }
+        int[] out = appointmentService.updateAppointments(appointments, token);
+        return ResponseEntity.status(HttpStatus.OK).body(bulkResult(out, HttpStatus.OK,
+                "Appointment Updated Successfully"));
+    }
+
     @DeleteMapping("/{id}/{token}")
     public ResponseEntity<Map<String, String>>  cancelAppointment(@PathVariable Long id, @PathVariable String token) {
 
@@ -95,4 +154,54 @@ public class AppointmentController {
         return appointmentService.cancelAppointment(id,token);
     }
 
-}
\ No newline at end of file
+    // Turns the per-item codes of the bulk service methods into the messages of the single endpoints
+    private static Map<String, Object> bulkResult(int[] out, HttpStatus success, String successMessage) {
+        List<Map<String, Object>> results = new ArrayList<>(out.length);
+        int succeeded = 0;
+        for (int i = 0; i < out.length; i++) {
+            HttpStatus status;
+            String message;
+            switch (out[i]) {
+                case 1:
+                    status = success;
+                    message = successMessage;
+                    succeeded++;
+                    break;
+                case 0:
+                    status = HttpStatus.CONFLICT;
+                    message = "Appointment already booked for given time or Doctor not available";
+                    break;
+                case -1:
+                    status = HttpStatus.BAD_REQUEST;
+                    message = "Invalid doctor id";
+                    break;
+                case -3:
+                    status = HttpStatus.BAD_REQUEST;
+                    message = "Doctor, patient and a future appointment time are required";
+                    break;
+                case -4:
+                    status = HttpStatus.NOT_FOUND;
+                    message = "No appointment available with this id";
+                    break;
+                case -5:
+                    status = HttpStatus.BAD_REQUEST;
+                    message = "Patient Id mismatch";
+                    break;
+                default:
+                    status = HttpStatus.INTERNAL_SERVER_ERROR;
+                    message = "Internal Server Error";
+            }
+            Map<String, Object> result = new HashMap<>();
+            result.put("index", i);
+            result.put("status", status.value());
+            result.put("message", message);
+            results.add(result);
+        }
+        Map<String, Object> map = new HashMap<>();
+        map.put("results", results);
+        map.put("succeeded", succeeded);
+        map.put("failed", out.length - succeeded);
+        return map;
+    }
+
+}
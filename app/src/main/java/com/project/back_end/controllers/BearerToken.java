@@ -0,0 +1,21 @@
+package com.project.back_end.controllers;
+
+import org.springframework.http.HttpHeaders;
+
+import com.project.back_end.services.RequestPrincipal;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+// For the header form of the GETs that take a {token} path variable: the token comes from an
+// "Authorization: Bearer" header, so the URL is the same for every user and can be cached. The
+// response then depends on that header, which Vary tells the caches.
+final class BearerToken {
+
+    private BearerToken() {
+    }
+
+    static String from(String authorization, HttpServletResponse response) {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION);
+        return RequestPrincipal.bearerToken(authorization);
+    }
+}
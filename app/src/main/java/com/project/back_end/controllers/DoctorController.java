@@ -2,36 +2,64 @@ package com.project.back_end.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import com.project.back_end.DTO.Login;
+import com.project.back_end.DTO.OpenSlot;
+import com.project.back_end.config.QueryBudget;
 import com.project.back_end.models.Doctor;
 import com.project.back_end.services.DoctorService;
+import com.project.back_end.services.DoctorVersions;
 import com.project.back_end.services.Service;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("${api.path}"+"doctor")
 public class DoctorController {
 
+    // Longest date range the availability endpoint answers in one request
+    private static final int MAX_AVAILABILITY_DAYS = 31;
+
+    // Most slots an earliest-slot search returns
+    private static final int MAX_EARLIEST_SLOTS = 50;
+
+    // Stored, but revalidated against the ETag on every use
+    private static final CacheControl PUBLIC = CacheControl.noCache();
+    private static final CacheControl PRIVATE = CacheControl.noCache().cachePrivate();
+
     private final DoctorService doctorService;
     private final Service service;
+    private final DoctorVersions doctorVersions;
 
     @Autowired
-    public DoctorController(DoctorService doctorService,Service service) {
+    public DoctorController(DoctorService doctorService,Service service, DoctorVersions doctorVersions) {
         this.doctorService = doctorService;
         this.service = service;
+        this.doctorVersions = doctorVersions;
     }
 
+    // The reads below answer 304 Not Modified while the DoctorVersions version they depend on is the one
+    // the client already has. Each endpoint taking a {token} also has a form reading it from an
+    // "Authorization: Bearer" header instead, so its URL is the same for every user and browsers can
+    // revalidate it; those responses vary by Authorization and stay in private caches.
+
     @GetMapping("/availability/{user}/{doctorId}/{date}/{token}")
-    public ResponseEntity<Map<String,Object>> getDoctorAvailability(@PathVariable String user,@PathVariable Long doctorId,@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date, @PathVariable String token) {
+    @QueryBudget(sql = 3)
+    public ResponseEntity<Map<String,Object>> getDoctorAvailability(@PathVariable String user,@PathVariable Long doctorId,@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date, @PathVariable String token,
+            WebRequest request) {
         
         Map<String, Object> map = new HashMap<>();
         ResponseEntity<Map<String,String>> tempMap= service.validateToken(token, user);
@@ -39,16 +67,101 @@ public class DoctorController {
             map.putAll(tempMap.getBody());
             return new ResponseEntity<>(map, tempMap.getStatusCode());
         }
+        if (notModified(request, doctorVersions.availability())) {
+            return null;
+        }
         map.put("message",doctorService.getDoctorAvailability(doctorId,date));
+        return ResponseEntity.status(HttpStatus.OK).cacheControl(PRIVATE).body(map);
+    }
+
+    @GetMapping("/availability/{user}/{doctorId}/{date}")
+    @QueryBudget(sql = 3)
+    public ResponseEntity<Map<String,Object>> getDoctorAvailabilityWithHeader(@PathVariable String user, @PathVariable Long doctorId,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            WebRequest request, HttpServletResponse response) {
+        return getDoctorAvailability(user, doctorId, date, BearerToken.from(authorization, response), request);
+    }
+
+    // Free slots for every day from `from` to `to` inclusive, keyed by date
+    @GetMapping("/availability/{user}/{doctorId}/{from}/{to}/{token}")
+    @QueryBudget(sql = 3)
+    public ResponseEntity<Map<String,Object>> getDoctorAvailability(@PathVariable String user, @PathVariable Long doctorId,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to, @PathVariable String token,
+            WebRequest request) {
+
+        Map<String, Object> map = new HashMap<>();
+        ResponseEntity<Map<String,String>> tempMap= service.validateToken(token, user);
+        if (!tempMap.getBody().isEmpty()) {
+            map.putAll(tempMap.getBody());
+            return new ResponseEntity<>(map, tempMap.getStatusCode());
+        }
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_AVAILABILITY_DAYS) {
+            map.put("message", "The range must end on or after its start and span at most " + MAX_AVAILABILITY_DAYS + " days");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
+        }
+        if (notModified(request, doctorVersions.availability())) {
+            return null;
+        }
+        Map<LocalDate, List<String>> availability = doctorService.getDoctorAvailability(doctorId, from, to);
+        if (availability == null) {
+            map.put("message", "Doctor not found with ID: " + doctorId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(map);
+        }
+        map.put("availability", availability);
+        return ResponseEntity.status(HttpStatus.OK).cacheControl(PRIVATE).body(map);
+    }
+
+    @GetMapping("/availability/{user}/{doctorId}")
+    @QueryBudget(sql = 3)
+    public ResponseEntity<Map<String,Object>> getDoctorAvailabilityWithHeader(@PathVariable String user, @PathVariable Long doctorId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            WebRequest request, HttpServletResponse response) {
+        return getDoctorAvailability(user, doctorId, from, to, BearerToken.from(authorization, response), request);
+    }
+
+    // The soonest free slots with any doctor of the specialty; time=AM or PM narrows them to half a day
+    @GetMapping("/earliest/{user}/{speciality}/{token}")
+    @QueryBudget(sql = 6)
+    public ResponseEntity<Map<String,Object>> getEarliestSlots(@PathVariable String user, @PathVariable String speciality,
+            @PathVariable String token, @RequestParam(required = false) String time,
+            @RequestParam(defaultValue = "5") int count) {
+
+        Map<String, Object> map = new HashMap<>();
+        ResponseEntity<Map<String,String>> tempMap= service.validateToken(token, user);
+        if (!tempMap.getBody().isEmpty()) {
+            map.putAll(tempMap.getBody());
+            return new ResponseEntity<>(map, tempMap.getStatusCode());
+        }
+        int limit = Math.max(1, Math.min(count, MAX_EARLIEST_SLOTS));
+        List<OpenSlot> slots = doctorService.findEarliestSlots(speciality, time, limit);
+        map.put("slots", slots);
         return ResponseEntity.status(HttpStatus.OK).body(map);
     }
 
+    // Not versioned: the answer moves on with the clock, not only with writes
+    @GetMapping("/earliest/{user}/{speciality}")
+    @QueryBudget(sql = 6)
+    public ResponseEntity<Map<String,Object>> getEarliestSlotsWithHeader(@PathVariable String user, @PathVariable String speciality,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(required = false) String time, @RequestParam(defaultValue = "5") int count,
+            HttpServletResponse response) {
+        return getEarliestSlots(user, speciality, BearerToken.from(authorization, response), time, count);
+    }
+
     @GetMapping
-    public ResponseEntity<Map<String,Object>> getDoctor()
+    @QueryBudget(sql = 1)
+    public ResponseEntity<Map<String,Object>> getDoctor(WebRequest request)
     {
+        if (notModified(request, doctorVersions.directory())) {
+            return null;
+        }
         Map<String, Object> map=new HashMap<>();
         map.put("doctors",doctorService.getDoctors());
-        return ResponseEntity.status(HttpStatus.OK).body(map);
+        return ResponseEntity.status(HttpStatus.OK).cacheControl(PUBLIC).body(map);
     }
 
     @PostMapping("/{token}")
@@ -130,20 +243,36 @@ public class DoctorController {
 
 
     @GetMapping("/filter/{name}/{time}/{speciality}")
-    public ResponseEntity<Map<String, Object>> filter(@PathVariable String name, @PathVariable String time, @PathVariable String speciality)
+    @QueryBudget(sql = 1)
+    public ResponseEntity<Map<String, Object>> filter(@PathVariable String name, @PathVariable String time, @PathVariable String speciality,
+            WebRequest request)
     {
+        if (notModified(request, doctorVersions.directory())) {
+            return null;
+        }
         Map<String,Object> map=new HashMap<>();
         map=service.filterDoctor(name, speciality, time);
-        return ResponseEntity.status(HttpStatus.OK).body(map);
+        return ResponseEntity.status(HttpStatus.OK).cacheControl(PUBLIC).body(map);
     }
 
 
     @GetMapping("/filter/{time}/{speciality}")
-    public ResponseEntity<Map<String, Object>> filter(@PathVariable String time, @PathVariable String speciality)
+    @QueryBudget(sql = 1)
+    public ResponseEntity<Map<String, Object>> filter(@PathVariable String time, @PathVariable String speciality,
+            WebRequest request)
     {
+        if (notModified(request, doctorVersions.directory())) {
+            return null;
+        }
         Map<String,Object> map=new HashMap<>();
         map=service.filterDoctor("null", speciality, time);
-        return ResponseEntity.status(HttpStatus.OK).body(map);
+        return ResponseEntity.status(HttpStatus.OK).cacheControl(PUBLIC).body(map);
+    }
+
+    // Sets ETag and Last-Modified on the response; true when the request's validators still match,
+    // the response is then a 304 without body
+    private static boolean notModified(WebRequest request, DoctorVersions.Version version) {
+        return request.checkNotModified(version.etag(), version.lastModified().toEpochMilli());
     }
 
 }
\ No newline at end of file
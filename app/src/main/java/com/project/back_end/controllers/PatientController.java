@@ -2,15 +2,22 @@ package com.project.back_end.controllers;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.DTO.AppointmentCursor;
 import com.project.back_end.DTO.Login;
+import com.project.back_end.config.QueryBudget;
 import com.project.back_end.models.Patient;
 import com.project.back_end.services.PatientService;
 import com.project.back_end.services.Service;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 import java.util.HashMap;
@@ -22,14 +29,17 @@ public class PatientController {
 
     private final PatientService patientService;
     private final Service service;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public PatientController(PatientService patientService,Service service) {
+    public PatientController(PatientService patientService,Service service,ObjectMapper objectMapper) {
         this.patientService = patientService;
         this.service=service;
+        this.objectMapper=objectMapper;
     }
 
     @GetMapping("/{token}")
+    @QueryBudget(sql = 2)
     public ResponseEntity<Map<String, Object>> getPatient(@PathVariable String token)
     {
         Map<String, Object> map = new HashMap<>();
@@ -41,6 +51,16 @@ public class PatientController {
         return patientService.getPatientDetails(token);
     }
 
+    // The GETs taking a {token} also come in a form reading it from "Authorization: Bearer", see BearerToken
+    @GetMapping
+    @QueryBudget(sql = 2)
+    public ResponseEntity<Map<String, Object>> getPatientWithHeader(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            HttpServletResponse response)
+    {
+        return getPatient(BearerToken.from(authorization, response));
+    }
+
     @PostMapping()
     public ResponseEntity<Map<String, String>> createPatient(@RequestBody @Valid Patient patient) {
         Map<String,String> map=new HashMap<>();
@@ -69,7 +89,9 @@ public class PatientController {
 
 
     @GetMapping("/{id}/{user}/{token}")
-    public ResponseEntity<Map<String,Object>> getPatientAppointment(@PathVariable Long id,@PathVariable String token, @PathVariable String user)
+    @QueryBudget(sql = 2)
+    public ResponseEntity<Map<String,Object>> getPatientAppointment(@PathVariable Long id,@PathVariable String token, @PathVariable String user,
+            @RequestParam(required = false) String after, @RequestParam(required = false) Integer limit)
     {
         Map<String, Object> map = new HashMap<>();
         ResponseEntity<Map<String,String>> tempMap= service.validateToken(token, user);
@@ -77,12 +99,53 @@ public class PatientController {
             map.putAll(tempMap.getBody());
             return new ResponseEntity<>(map, tempMap.getStatusCode());
         }
+        AppointmentCursor cursor;
+        try {
+            cursor = AppointmentCursor.parse(after);
+        } catch (IllegalArgumentException e) {
+            map.put("error", "Invalid cursor");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
+        }
+
+        return patientService.getPatientAppointment(id,token,cursor,limit);
+    }
+
+    @GetMapping("/{id}/{user}")
+    @QueryBudget(sql = 2)
+    public ResponseEntity<Map<String,Object>> getPatientAppointmentWithHeader(@PathVariable Long id, @PathVariable String user,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(required = false) String after, @RequestParam(required = false) Integer limit,
+            HttpServletResponse response)
+    {
+        return getPatientAppointment(id, BearerToken.from(authorization, response), user, after, limit);
+    }
+
+    // Same history as newline-delimited JSON, written while it is read (Accept: application/x-ndjson)
+    @GetMapping(value = "/{id}/{user}/{token}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPatientAppointment(@PathVariable Long id,@PathVariable String token, @PathVariable String user)
+    {
+        ResponseEntity<Map<String,String>> tempMap= service.validateToken(token, user);
+        if (!tempMap.getBody().isEmpty()) {
+            Map<String, String> error = tempMap.getBody();
+            return ResponseEntity.status(tempMap.getStatusCode()).contentType(MediaType.APPLICATION_NDJSON)
+                    .body(out -> objectMapper.writeValue(out, error));
+        }
+        return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> patientService.streamPatientAppointments(id, out));
+    }
 
-        return patientService.getPatientAppointment(id,token);
+    @GetMapping(value = "/{id}/{user}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPatientAppointmentWithHeader(@PathVariable Long id, @PathVariable String user,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            HttpServletResponse response)
+    {
+        return streamPatientAppointment(id, BearerToken.from(authorization, response), user);
     }
 
     @GetMapping("/filter/{condition}/{name}/{token}")
-    public ResponseEntity<Map<String,Object>> filterPatientAppointment(@PathVariable String condition, @PathVariable String name, @PathVariable String token)
+    @QueryBudget(sql = 2)
+    public ResponseEntity<Map<String,Object>> filterPatientAppointment(@PathVariable String condition, @PathVariable String name, @PathVariable String token,
+            @RequestParam(required = false) String after, @RequestParam(required = false) Integer limit)
     {
         Map<String, Object> map = new HashMap<>();
         ResponseEntity<Map<String,String>> tempMap= service.validateToken(token, "patient");
@@ -90,7 +153,24 @@ public class PatientController {
             map.putAll(tempMap.getBody());
             return new ResponseEntity<>(map, tempMap.getStatusCode());
         }
-        return service.filterPatient(condition,name,token);
+        AppointmentCursor cursor;
+        try {
+            cursor = AppointmentCursor.parse(after);
+        } catch (IllegalArgumentException e) {
+            map.put("error", "Invalid cursor");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
+        }
+        return service.filterPatient(condition,name,token,cursor,limit);
+    }
+
+    @GetMapping("/filter/{condition}/{name}")
+    @QueryBudget(sql = 2)
+    public ResponseEntity<Map<String,Object>> filterPatientAppointmentWithHeader(@PathVariable String condition, @PathVariable String name,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(required = false) String after, @RequestParam(required = false) Integer limit,
+            HttpServletResponse response)
+    {
+        return filterPatientAppointment(condition, name, BearerToken.from(authorization, response), after, limit);
     }
 
 
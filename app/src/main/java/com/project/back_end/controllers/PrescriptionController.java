@@ -1,28 +1,42 @@
 package com.project.back_end.controllers;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.project.back_end.config.QueryBudget;
 import com.project.back_end.models.Prescription;
 import com.project.back_end.services.AppointmentService;
 import com.project.back_end.services.PrescriptionService;
 import com.project.back_end.services.Service;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("${api.path}" + "prescription")
 public class PrescriptionController {
 
+    private static final Logger log = LoggerFactory.getLogger(PrescriptionController.class);
+
+    // Largest number of appointment ids one batch lookup accepts
+    private static final int MAX_BATCH_SIZE = 500;
+
     private final PrescriptionService prescriptionService;
     private final Service service;
     private final AppointmentService appointmentService;
@@ -40,11 +54,66 @@ public class PrescriptionController {
         if (!tempMap.getBody().isEmpty()) {
             return tempMap;
         }
-        appointmentService.changeStatus(prescription.getAppointmentId());
-        return prescriptionService.savePrescription(prescription);
+        ResponseEntity<Map<String, String>> result = prescriptionService.savePrescription(prescription);
+        if (result.getStatusCode() == HttpStatus.CREATED) {
+            appointmentService.changeStatus(prescription.getAppointmentId());
+        }
+        return result;
+    }
+
+    // e.g. /prescription/batch/{token}?appointmentIds=4,8,15 for all the rows of a day view
+    @GetMapping("/batch/{token}")
+    // Ids of other doctors' appointments are left out. withAppointments=true also returns the doctor's
+    // appointments for the ids, loaded alongside
+    @QueryBudget(sql = 2, mongo = 1)
+    public ResponseEntity<Map<String, Object>> getPrescriptions(@RequestParam List<Long> appointmentIds,
+            @RequestParam(defaultValue = "false") boolean withAppointments, @PathVariable String token)
+    {
+        Map<String, Object> map = new HashMap<>();
+        ResponseEntity<Map<String,String>> tempMap= service.validateToken(token, "doctor");
+        if (!tempMap.getBody().isEmpty()) {
+            map.putAll(tempMap.getBody());
+            return new ResponseEntity<>(map, tempMap.getStatusCode());
+        }
+        if (appointmentIds.size() > MAX_BATCH_SIZE) {
+            map.put("error", "At most " + MAX_BATCH_SIZE + " appointment ids per request");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
+        }
+        if (withAppointments) {
+            try {
+                return ResponseEntity.status(HttpStatus.OK)
+                        .body(appointmentService.getAppointmentsWithPrescriptions(appointmentIds, token));
+            } catch (Exception e) {
+                log.error("Error fetching prescriptions with appointments", e);
+                map.put("error", "Internal Server Error");
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(map);
+            }
+        }
+        // Only the prescriptions of the doctor's own appointments, like withAppointments=true
+        List<Long> ownIds;
+        try {
+            ownIds = appointmentService.findOwnAppointmentIds(appointmentIds, token);
+        } catch (Exception e) {
+            log.error("Error fetching prescriptions", e);
+            map.put("error", "Internal Server Error");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(map);
+        }
+        return prescriptionService.getPrescriptions(ownIds);
+    }
+
+    // The GETs taking a {token} also come in a form reading it from "Authorization: Bearer", see BearerToken
+    @GetMapping("/batch")
+    @QueryBudget(sql = 2, mongo = 1)
+    public ResponseEntity<Map<String, Object>> getPrescriptionsWithHeader(@RequestParam List<Long> appointmentIds,
+            @RequestParam(defaultValue = "false") boolean withAppointments,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            HttpServletResponse response)
+    {
+        return getPrescriptions(appointmentIds, withAppointments, BearerToken.from(authorization, response));
     }
 
     @GetMapping("/{appointmentId}/{token}")
+    @QueryBudget(sql = 1, mongo = 1)
     public ResponseEntity<Map<String, Object>> getPrescription(@PathVariable Long appointmentId,@PathVariable String token)
     {
         Map<String, Object> map = new HashMap<>();
@@ -55,4 +124,13 @@ public class PrescriptionController {
         }
         return prescriptionService.getPrescription(appointmentId);
     }
+
+    @GetMapping("/{appointmentId}")
+    @QueryBudget(sql = 1, mongo = 1)
+    public ResponseEntity<Map<String, Object>> getPrescriptionWithHeader(@PathVariable Long appointmentId,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            HttpServletResponse response)
+    {
+        return getPrescription(appointmentId, BearerToken.from(authorization, response));
+    }
 }
\ No newline at end of file
@@ -5,8 +5,11 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotNull;
 
@@ -16,6 +19,13 @@ import java.time.LocalTime;
 
 
 @Entity
+// uk_appointment_doctor_time also serves the doctor's day queries (doctor_id, appointment_time range);
+// the patient indexes serve the patient history and its past/future filters
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_appointment_doctor_time",
+        columnNames = { "doctor_id", "appointment_time" }), indexes = {
+        @Index(name = "idx_appointment_patient_time", columnList = "patient_id, appointment_time"),
+        @Index(name = "idx_appointment_patient_status_time", columnList = "patient_id, status, appointment_time")
+})
 public class Appointment {
 
     @Id
@@ -2,19 +2,30 @@ package com.project.back_end.models;
 
 
 
+import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import java.util.List;
+import java.util.Locale;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_doctor_email", columnNames = "email"), indexes = {
+        @Index(name = "idx_doctor_specialty_morning", columnList = "specialty_key, has_morning_slots"),
+        @Index(name = "idx_doctor_specialty_afternoon", columnList = "specialty_key, has_afternoon_slots")
+})
 public class Doctor {
 
     @Id
@@ -47,6 +58,24 @@ public class Doctor {
     @ElementCollection
     private List<String> availableTimes; // e.g., ["09:00-10:00", "10:00-11:00", ...]
 
+    // Filter facets derived from specialty and availableTimes by refreshFacets(), so the
+    // doctor filters can be answered by one indexed SQL query
+    @JsonIgnore
+    @Column(name = "specialty_key", length = 50)
+    private String specialtyKey;
+
+    @JsonIgnore
+    @Column(name = "has_morning_slots")
+    private boolean hasMorningSlots;
+
+    @JsonIgnore
+    @Column(name = "has_afternoon_slots")
+    private boolean hasAfternoonSlots;
+
+    // availableTimes packed by TimeSlot, derived on first use and reset by setAvailableTimes
+    @Transient
+    private volatile int[] slots;
+
 
 
     // Getters and Setters
@@ -106,5 +135,38 @@ public class Doctor {
 
     public void setAvailableTimes(List<String> availableTimes) {
         this.availableTimes = availableTimes;
+        this.slots = null;
+    }
+
+    @JsonIgnore
+    public int[] getSlots() {
+        int[] packed = slots;
+        if (packed == null) {
+            packed = TimeSlot.parseAll(availableTimes);
+            slots = packed;
+        }
+        return packed;
+    }
+
+    // TimeSlot.MORNING and/or TimeSlot.AFTERNOON
+    @JsonIgnore
+    public int getDayParts() {
+        return TimeSlot.dayParts(getSlots());
+    }
+
+    public String getSpecialtyKey() {
+        return specialtyKey;
+    }
+
+    // Recomputes the filter facets; call before saving a new or changed doctor
+    public void refreshFacets() {
+        int dayParts = getDayParts();
+        this.specialtyKey = normalizeSpecialty(specialty);
+        this.hasMorningSlots = (dayParts & TimeSlot.MORNING) != 0;
+        this.hasAfternoonSlots = (dayParts & TimeSlot.AFTERNOON) != 0;
+    }
+
+    public static String normalizeSpecialty(String specialty) {
+        return specialty == null ? null : specialty.trim().toLowerCase(Locale.ROOT);
     }
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+package com.project.back_end.models;
+
+import java.time.LocalDateTime;
+
+// Compact form of an "HH:mm-HH:mm" slot: the start and end minute of the day packed into one int.
+// Doctor.availableTimes stays the stored/serialized form, this is what the hot paths compare.
+public final class TimeSlot {
+
+    public static final int INVALID = -1;
+
+    // Day part bits, see dayParts(...)
+    public static final int MORNING = 1;
+    public static final int AFTERNOON = 2;
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private TimeSlot() {
+    }
+
+    public static int pack(int startMinute, int endMinute) {
+        return (startMinute << 16) | endMinute;
+    }
+
+    public static int startMinute(int slot) {
+        return slot >>> 16;
+    }
+
+    public static int endMinute(int slot) {
+        return slot & 0xFFFF;
+    }
+
+    // The slot an appointment starting at the given time occupies (appointments last one hour)
+    public static int ofAppointment(LocalDateTime start) {
+        int minute = start.getHour() * 60 + start.getMinute();
+        return pack(minute, (minute + 60) % MINUTES_PER_DAY);
+    }
+
+    // Parses "09:00-10:00" (or "9:00-10:00") without allocating; returns INVALID for anything else
+    public static int parse(String slot) {
+        if (slot == null) {
+            return INVALID;
+        }
+        int dash = slot.indexOf('-');
+        if (dash < 0) {
+            return INVALID;
+        }
+        int start = parseMinute(slot, 0, dash);
+        int end = parseMinute(slot, dash + 1, slot.length());
+        if (start < 0 || end < 0) {
+            return INVALID;
+        }
+        return pack(start, end);
+    }
+
+    public static int[] parseAll(Iterable<String> slots) {
+        if (slots == null) {
+            return new int[0];
+        }
+        int count = 0;
+        for (String ignored : slots) {
+            count++;
+        }
+        int[] packed = new int[count];
+        int i = 0;
+        for (String slot : slots) {
+            packed[i++] = parse(slot);
+        }
+        return packed;
+    }
+
+    // MORNING and/or AFTERNOON bits for the valid slots, by start time
+    public static int dayParts(int[] slots) {
+        int mask = 0;
+        for (int slot : slots) {
+            if (slot != INVALID) {
+                mask |= startMinute(slot) < 12 * 60 ? MORNING : AFTERNOON;
+            }
+        }
+        return mask;
+    }
+
+    private static int parseMinute(String text, int from, int to) {
+        while (from < to && text.charAt(from) == ' ') {
+            from++;
+        }
+        while (to > from && text.charAt(to - 1) == ' ') {
+            to--;
+        }
+        int colon = text.indexOf(':', from);
+        if (colon < 0 || colon >= to || colon == from || colon - from > 2 || to - colon != 3) {
+            return -1;
+        }
+        int hour = parseDigits(text, from, colon);
+        int minute = parseDigits(text, colon + 1, to);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return -1;
+        }
+        return hour * 60 + minute;
+    }
+
+    private static int parseDigits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
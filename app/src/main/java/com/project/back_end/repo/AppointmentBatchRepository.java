@@ -0,0 +1,79 @@
+package com.project.back_end.repo;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.back_end.models.Appointment;
+
+// Multi-row writes for the bulk appointment endpoints. Appointment ids are IDENTITY generated,
+// which turns off Hibernate's JDBC batching, so these go through JdbcTemplate batches instead
+// (sent as multi-row statements thanks to rewriteBatchedStatements on the MySQL URL).
+@Repository
+public class AppointmentBatchRepository {
+
+    private static final String INSERT =
+            "INSERT INTO appointment (doctor_id, patient_id, appointment_time, status) VALUES (?, ?, ?, ?)";
+
+    private static final String UPDATE =
+            "UPDATE appointment SET doctor_id = ?, patient_id = ?, appointment_time = ?, status = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+
+    public AppointmentBatchRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    // Per row: 1 written, 0 rejected by the unique (doctor_id, appointment_time) key, -2 failed
+    public int[] insertAll(List<Appointment> appointments) {
+        return writeAll(INSERT, appointments, false);
+    }
+
+    // Same codes; every appointment must carry the id of the row it replaces
+    public int[] updateAll(List<Appointment> appointments) {
+        return writeAll(UPDATE, appointments, true);
+    }
+
+    private int[] writeAll(String sql, List<Appointment> rows, boolean withId) {
+        int[] results = new int[rows.size()];
+        if (rows.isEmpty()) {
+            return results;
+        }
+        try {
+            transaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, rows, rows.size(),
+                    (ps, row) -> bind(ps, row, withId)));
+            Arrays.fill(results, 1);
+            return results;
+        } catch (DataAccessException e) {
+            // The batch was rolled back as a whole; write row by row to find out which rows were at fault
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            Appointment row = rows.get(i);
+            try {
+                results[i] = jdbcTemplate.update(sql, ps -> bind(ps, row, withId)) == 1 ? 1 : -2;
+            } catch (DataAccessException e) {
+                results[i] = AppointmentRepository.isSlotTaken(e) ? 0 : -2;
+            }
+        }
+        return results;
+    }
+
+    private static void bind(PreparedStatement ps, Appointment row, boolean withId) throws SQLException {
+        ps.setLong(1, row.getDoctor().getId());
+        ps.setLong(2, row.getPatient().getId());
+        ps.setObject(3, row.getAppointmentTime());
+        ps.setInt(4, row.getStatus());
+        if (withId) {
+            ps.setLong(5, row.getId());
+        }
+    }
+}
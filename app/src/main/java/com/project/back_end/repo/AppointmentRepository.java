@@ -1,42 +1,138 @@
 package com.project.back_end.repo;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import com.project.back_end.DTO.AppointmentDTO;
 import com.project.back_end.models.Appointment;
 
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
-    @Query("SELECT a FROM Appointment a LEFT JOIN FETCH a.doctor d LEFT JOIN FETCH d.availableTimes WHERE a.doctor.id = :doctorId AND a.appointmentTime BETWEEN :start AND :end")
-    List<Appointment> findByDoctorIdAndAppointmentTimeBetween(Long doctorId, LocalDateTime start, LocalDateTime end);
+    // Selects only the AppointmentDTO columns, so listing appointments loads no entities
+    String APPOINTMENT_DTO = "SELECT new com.project.back_end.DTO.AppointmentDTO(a.id, d.id, d.name, p.id, p.name, p.email, p.phone, p.address, a.appointmentTime, a.status) FROM Appointment a JOIN a.doctor d JOIN a.patient p";
+
+    // Keyset paging for patient history in (appointmentTime, id) order: FIRST_PAGE starts at the beginning,
+    // AFTER_CURSOR at the rows after (afterTime, afterId). Pass Pageable.unpaged() to read everything.
+    // The cursor needs a query of its own: an optional ":afterTime IS NULL OR ..." guard keeps MySQL from
+    // seeking the (patient_id, appointment_time) indexes, while ">= :afterTime" gives it the range start.
+    String FIRST_PAGE = " ORDER BY a.appointmentTime ASC, a.id ASC";
+    String AFTER_CURSOR = " AND a.appointmentTime >= :afterTime AND (a.appointmentTime > :afterTime OR a.id > :afterId)"
+            + FIRST_PAGE;
+
+    @Query("SELECT a.appointmentTime FROM Appointment a WHERE a.doctor.id = :doctorId AND a.appointmentTime BETWEEN :start AND :end")
+    List<LocalDateTime> findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(Long doctorId, LocalDateTime start, LocalDateTime end);
+
+    // (doctor id, appointment time) pairs of several doctors at once, for the earliest-slot search
+    @Query("SELECT a.doctor.id, a.appointmentTime FROM Appointment a WHERE a.doctor.id IN :doctorIds AND a.appointmentTime BETWEEN :start AND :end")
+    List<Object[]> findDoctorIdsAndAppointmentTimes(Collection<Long> doctorIds, LocalDateTime start, LocalDateTime end);
+
+    @Query(APPOINTMENT_DTO + " WHERE d.id = :doctorId AND a.appointmentTime BETWEEN :start AND :end")
+    List<AppointmentDTO> findByDoctorIdAndAppointmentTimeBetween(Long doctorId, LocalDateTime start, LocalDateTime end);
 
-    @Query("SELECT a FROM Appointment a LEFT JOIN FETCH a.doctor d LEFT JOIN FETCH d.availableTimes LEFT JOIN FETCH a.patient p WHERE a.doctor.id = :doctorId AND p.name LIKE %:patientName% AND a.appointmentTime BETWEEN :start AND :end")
-    List<Appointment> findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
-            Long doctorId, String patientName, LocalDateTime start, LocalDateTime end);
+    // Which of the ids are the doctor's own appointments, from the primary key alone
+    @Query("SELECT a.id FROM Appointment a WHERE a.id IN :ids AND a.doctor.id = :doctorId")
+    List<Long> findIdsByIdInAndDoctorId(Collection<Long> ids, Long doctorId);
+
+    @Query(APPOINTMENT_DTO + " WHERE a.id IN :ids AND d.id = :doctorId ORDER BY a.appointmentTime ASC")
+    List<AppointmentDTO> findByIdInAndDoctorId(Collection<Long> ids, Long doctorId);
+
+    // Appointments being rescheduled in bulk, with doctor and patient in the same statement
+    @EntityGraph(attributePaths = { "doctor", "patient" })
+    List<Appointment> findByIdIn(Collection<Long> ids);
 
     @Modifying
     @Transactional
     @Query("DELETE FROM Appointment a WHERE a.doctor.id = :doctorId")
     void deleteAllByDoctorId(Long doctorId);
 
-    List<Appointment> findByPatientId(Long patientId);
+    @Query(APPOINTMENT_DTO + " WHERE p.id = :patientId" + FIRST_PAGE)
+    List<AppointmentDTO> findByPatientId(Long patientId, Pageable page);
+
+    @Query(APPOINTMENT_DTO + " WHERE p.id = :patientId" + AFTER_CURSOR)
+    List<AppointmentDTO> findByPatientIdAfter(Long patientId, LocalDateTime afterTime, Long afterId, Pageable page);
+
+    @Query(APPOINTMENT_DTO + " WHERE p.id = :patientId AND a.status = :status" + FIRST_PAGE)
+    List<AppointmentDTO> findByPatientIdAndStatus(Long patientId, int status, Pageable page);
 
-    List<Appointment> findByPatient_IdAndStatusOrderByAppointmentTimeAsc(Long patientId, int status);
+    @Query(APPOINTMENT_DTO + " WHERE p.id = :patientId AND a.status = :status" + AFTER_CURSOR)
+    List<AppointmentDTO> findByPatientIdAndStatusAfter(Long patientId, int status, LocalDateTime afterTime,
+            Long afterId, Pageable page);
 
-    @Query("SELECT a FROM Appointment a WHERE LOWER(a.doctor.name) LIKE LOWER(CONCAT('%', :doctorName, '%')) AND a.patient.id = :patientId")
-    List<Appointment> filterByDoctorNameAndPatientId(String doctorName, Long patientId);
+    // Doctor-name filters: doctorIds are the DoctorNameIndex matches for the name
+    @Query(APPOINTMENT_DTO + " WHERE d.id IN :doctorIds AND p.id = :patientId" + FIRST_PAGE)
+    List<AppointmentDTO> filterByDoctorIdInAndPatientId(Collection<Long> doctorIds, Long patientId, Pageable page);
 
-    @Query("SELECT a FROM Appointment a WHERE LOWER(a.doctor.name) LIKE LOWER(CONCAT('%', :doctorName, '%')) AND a.patient.id = :patientId AND a.status = :status")
-    List<Appointment> filterByDoctorNameAndPatientIdAndStatus(String doctorName, Long patientId, int status);
+    @Query(APPOINTMENT_DTO + " WHERE d.id IN :doctorIds AND p.id = :patientId" + AFTER_CURSOR)
+    List<AppointmentDTO> filterByDoctorIdInAndPatientIdAfter(Collection<Long> doctorIds, Long patientId,
+            LocalDateTime afterTime, Long afterId, Pageable page);
+
+    @Query(APPOINTMENT_DTO + " WHERE d.id IN :doctorIds AND p.id = :patientId AND a.status = :status" + FIRST_PAGE)
+    List<AppointmentDTO> filterByDoctorIdInAndPatientIdAndStatus(Collection<Long> doctorIds, Long patientId,
+            int status, Pageable page);
+
+    @Query(APPOINTMENT_DTO + " WHERE d.id IN :doctorIds AND p.id = :patientId AND a.status = :status" + AFTER_CURSOR)
+    List<AppointmentDTO> filterByDoctorIdInAndPatientIdAndStatusAfter(Collection<Long> doctorIds, Long patientId,
+            int status, LocalDateTime afterTime, Long afterId, Pageable page);
+
+    // Names matching more than DoctorNameIndex.MAX_IDS_PER_QUERY doctors: the patient's own rows are
+    // few, so the name is checked on those instead of sending every matching doctor id
+    String DOCTOR_NAME = " AND LOCATE(LOWER(:doctorName), LOWER(d.name)) > 0";
+
+    @Query(APPOINTMENT_DTO + " WHERE p.id = :patientId" + DOCTOR_NAME + FIRST_PAGE)
+    List<AppointmentDTO> filterByDoctorNameAndPatientId(String doctorName, Long patientId, Pageable page);
+
+    @Query(APPOINTMENT_DTO + " WHERE p.id = :patientId" + DOCTOR_NAME + AFTER_CURSOR)
+    List<AppointmentDTO> filterByDoctorNameAndPatientIdAfter(String doctorName, Long patientId,
+            LocalDateTime afterTime, Long afterId, Pageable page);
+
+    @Query(APPOINTMENT_DTO + " WHERE p.id = :patientId AND a.status = :status" + DOCTOR_NAME + FIRST_PAGE)
+    List<AppointmentDTO> filterByDoctorNameAndPatientIdAndStatus(String doctorName, Long patientId, int status,
+            Pageable page);
+
+    @Query(APPOINTMENT_DTO + " WHERE p.id = :patientId AND a.status = :status" + DOCTOR_NAME + AFTER_CURSOR)
+    List<AppointmentDTO> filterByDoctorNameAndPatientIdAndStatusAfter(String doctorName, Long patientId,
+            int status, LocalDateTime afterTime, Long afterId, Pageable page);
+
+    // Streams rows from the MySQL driver one at a time (fetch size MIN_VALUE); must be consumed
+    // and closed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(APPOINTMENT_DTO + " WHERE p.id = :patientId ORDER BY a.appointmentTime ASC, a.id ASC")
+    Stream<AppointmentDTO> streamByPatientId(Long patientId);
 
     @Modifying
     @Query("UPDATE Appointment a SET a.status = :status WHERE a.id = :id")
     void updateStatus(int status,long id);
-}
\ No newline at end of file
+
+    // True when a write failed on uk_appointment_doctor_time, i.e. someone else holds the slot. Other
+    // integrity errors (unknown patient, missing column value) are failures of the request itself.
+    static boolean isSlotTaken(DataAccessException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && cause.getMessage() != null
+                    && cause.getMessage().toLowerCase(Locale.ROOT).contains("uk_appointment_doctor_time")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
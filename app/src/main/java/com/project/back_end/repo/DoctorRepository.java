@@ -1,7 +1,10 @@
 package com.project.back_end.repo;
 
 import com.project.back_end.models.Doctor;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -10,11 +13,58 @@ import org.springframework.stereotype.Repository;
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
    Doctor findByEmail(String email);
 
-   @Query("SELECT d FROM Doctor d WHERE d.name LIKE CONCAT('%', :name, '%')")
-   List<Doctor> findByNameLike(String name);
+   // Queries returning doctors for display load availableTimes in the same statement through
+   // the entity graph, instead of one extra query per doctor when the slots are read
+   @EntityGraph(attributePaths = "availableTimes")
+   @Query("SELECT d FROM Doctor d WHERE d.id = :id")
+   Optional<Doctor> findWithAvailableTimesById(Long id);
 
-   @Query("SELECT d FROM Doctor d WHERE LOWER(d.name) LIKE LOWER(CONCAT('%', :name, '%')) AND LOWER(d.specialty) = LOWER(:specialty)")
-   List<Doctor> findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(String name, String specialty);
+   @EntityGraph(attributePaths = "availableTimes")
+   @Query("SELECT d FROM Doctor d")
+   List<Doctor> findAllWithAvailableTimes();
 
-   List<Doctor> findBySpecialtyIgnoreCase(String specialty);
-}
\ No newline at end of file
+   // Name filters pass the ids DoctorNameIndex found for the name, which the primary key resolves
+   // instead of a LIKE '%name%' scan
+   @EntityGraph(attributePaths = "availableTimes")
+   @Query("SELECT d FROM Doctor d WHERE d.id IN :ids")
+   List<Doctor> findByIdIn(Collection<Long> ids);
+
+   @EntityGraph(attributePaths = "availableTimes")
+   List<Doctor> findByIdInAndSpecialtyKey(Collection<Long> ids, String specialtyKey);
+
+   // Everything DoctorNameIndex needs, without loading the entities
+   @Query("SELECT d.id, d.name FROM Doctor d")
+   List<Object[]> findIdsAndNames();
+
+   @EntityGraph(attributePaths = "availableTimes")
+   List<Doctor> findBySpecialtyKey(String specialtyKey);
+
+   @EntityGraph(attributePaths = "availableTimes")
+   List<Doctor> findBySpecialtyKeyIsNull();
+
+   // Doctors with an AM or a PM slot (see Doctor.refreshFacets). One query per day part, so each is
+   // a plain predicate on its column that idx_doctor_specialty_morning/_afternoon can serve
+   @EntityGraph(attributePaths = "availableTimes")
+   List<Doctor> findByHasMorningSlotsTrue();
+
+   @EntityGraph(attributePaths = "availableTimes")
+   List<Doctor> findByHasAfternoonSlotsTrue();
+
+   @EntityGraph(attributePaths = "availableTimes")
+   List<Doctor> findByIdInAndHasMorningSlotsTrue(Collection<Long> ids);
+
+   @EntityGraph(attributePaths = "availableTimes")
+   List<Doctor> findByIdInAndHasAfternoonSlotsTrue(Collection<Long> ids);
+
+   @EntityGraph(attributePaths = "availableTimes")
+   List<Doctor> findBySpecialtyKeyAndHasMorningSlotsTrue(String specialtyKey);
+
+   @EntityGraph(attributePaths = "availableTimes")
+   List<Doctor> findBySpecialtyKeyAndHasAfternoonSlotsTrue(String specialtyKey);
+
+   @EntityGraph(attributePaths = "availableTimes")
+   List<Doctor> findByIdInAndSpecialtyKeyAndHasMorningSlotsTrue(Collection<Long> ids, String specialtyKey);
+
+   @EntityGraph(attributePaths = "availableTimes")
+   List<Doctor> findByIdInAndSpecialtyKeyAndHasAfternoonSlotsTrue(Collection<Long> ids, String specialtyKey);
+}
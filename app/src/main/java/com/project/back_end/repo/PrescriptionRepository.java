@@ -1,13 +1,21 @@
 package com.project.back_end.repo;
 
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import com.project.back_end.models.Prescription;
 
 public interface PrescriptionRepository extends MongoRepository<Prescription, String> {
     
     List<Prescription> findByAppointmentId(Long appointmentId);
+
+    List<Prescription> findByAppointmentIdIn(Collection<Long> appointmentIds);
+
+    // Same $in query, returning only appointmentId (served from the unique index)
+    @Query(value = "{ 'appointmentId': { $in: ?0 } }", fields = "{ 'appointmentId': 1, '_id': 0 }")
+    List<Prescription> findAppointmentIdsByAppointmentIdIn(Collection<Long> appointmentIds);
 }
\ No newline at end of file
@@ -3,52 +3,243 @@ package com.project.back_end.services;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.project.back_end.DTO.AppointmentDTO;
 import com.project.back_end.models.Appointment;
-import com.project.back_end.models.Patient;
+import com.project.back_end.models.Prescription;
+import com.project.back_end.repo.AppointmentBatchRepository;
 import com.project.back_end.repo.AppointmentRepository;
-import com.project.back_end.repo.DoctorRepository;
-import com.project.back_end.repo.PatientRepository;
 
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
 
+@Timed("app.service")
 @Service
 public class AppointmentService {
 
+    private static final Logger log = LoggerFactory.getLogger(AppointmentService.class);
+
     private final AppointmentRepository appointmentRepository;
+    private final AppointmentBatchRepository appointmentBatchRepository;
     private final com.project.back_end.services.Service service;
-    private final TokenService tokenService;
-    private final PatientRepository patientRepository;
-    private final DoctorRepository doctorRepository;
+    private final RequestPrincipal requestPrincipal;
+    private final AvailabilityIndex availabilityIndex;
+    private final SlotLocks slotLocks;
+    private final PrescriptionService prescriptionService;
+    private final Executor executor;
+    // Only on virtual threads is the applicationTaskExecutor a thread per task. Otherwise it is Boot's
+    // pool of 8 platform threads shared by every request, which concurrent reads would queue behind.
+    private final boolean concurrentReads;
 
     public AppointmentService(AppointmentRepository appointmentRepository,
-            com.project.back_end.services.Service service, TokenService tokenService,
-            PatientRepository patientRepository, DoctorRepository doctorRepository) {
+            AppointmentBatchRepository appointmentBatchRepository,
+            com.project.back_end.services.Service service, RequestPrincipal requestPrincipal,
+            AvailabilityIndex availabilityIndex, SlotLocks slotLocks, PrescriptionService prescriptionService,
+            @Qualifier("applicationTaskExecutor") Executor executor, Environment environment) {
         this.appointmentRepository = appointmentRepository;
+        this.appointmentBatchRepository = appointmentBatchRepository;
         this.service = service;
-        this.tokenService = tokenService;
-        this.patientRepository = patientRepository;
-        this.doctorRepository = doctorRepository;
+        this.requestPrincipal = requestPrincipal;
+        this.availabilityIndex = availabilityIndex;
+        this.slotLocks = slotLocks;
+        this.prescriptionService = prescriptionService;
+        this.executor = executor;
+        this.concurrentReads = Threading.VIRTUAL.isActive(environment);
     }
 
+    // 1 booked, 0 slot taken or not offered, -1 unknown doctor, -2 save failed.
+    // The check and the insert run under the doctor-day lock, so of two patients racing for a slot
+    // exactly one gets 1; a taken slot is answered from the index without waiting for the lock.
     public int bookAppointment(Appointment appointment) {
+        int out = service.validateAppointment(appointment);
+        if (out != 1) {
+            return out;
+        }
+        Long doctorId = appointment.getDoctor().getId();
+        Lock lock = slotLocks.lockFor(doctorId, appointment.getAppointmentTime().toLocalDate());
+        lock.lock();
         try {
-            appointmentRepository.save(appointment);
+            out = service.validateAppointment(appointment);
+            if (out != 1) {
+                return out;
+            }
+            appointmentRepository.saveAndFlush(appointment);
+            availabilityIndex.markBooked(doctorId, appointment.getAppointmentTime());
             return 1;
-        } catch (Exception e) {
-            System.out.println("Error: " + e);
+        } catch (DataIntegrityViolationException e) {
+            if (!AppointmentRepository.isSlotTaken(e)) {
+                log.error("Error booking appointment", e);
+                return -2;
+            }
+            // Booked by another instance since the index loaded the day
+            availabilityIndex.markBooked(doctorId, appointment.getAppointmentTime());
             return 0;
+        } catch (Exception e) {
+            log.error("Error booking appointment", e);
+            return -2;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Books a whole batch with one lock acquisition and one multi-row insert. Every item is checked
+    // against the availability index (one snapshot per doctor-day) and against the earlier items.
+    // Per item: 1 booked, 0 slot taken or not offered, -1 unknown doctor, -2 save failed,
+    // -3 incomplete appointment or time in the past, -5 booked for another patient than the token's.
+    public int[] bookAppointments(List<Appointment> appointments, String token) {
+        Long patientId = requestPrincipal.resolve(token, "patient").id();
+        int[] results = new int[appointments.size()];
+        List<Appointment> candidates = new ArrayList<>();
+        for (int i = 0; i < appointments.size(); i++) {
+            Appointment appointment = appointments.get(i);
+            if (!isComplete(appointment)) {
+                results[i] = -3;
+            } else if (!patientId.equals(appointment.getPatient().getId())) {
+                results[i] = -5;
+            } else {
+                results[i] = 1;
+            }
+            if (results[i] == 1) {
+                candidates.add(appointments.get(i));
+            }
+        }
+
+        List<Lock> locks = slotLocks.lockAll(candidates);
+        try {
+            List<Integer> acceptedIndexes = claimSlots(appointments, results);
+            List<Appointment> accepted = new ArrayList<>(acceptedIndexes.size());
+            for (int i : acceptedIndexes) {
+                accepted.add(appointments.get(i));
+            }
+
+            int[] written = appointmentBatchRepository.insertAll(accepted);
+            for (int j = 0; j < written.length; j++) {
+                Appointment appointment = accepted.get(j);
+                results[acceptedIndexes.get(j)] = written[j];
+                if (written[j] != -2) {
+                    // Either inserted now or taken by another instance in the meantime
+                    availabilityIndex.markBooked(appointment.getDoctor().getId(), appointment.getAppointmentTime());
+                }
+            }
+            return results;
+        } finally {
+            slotLocks.unlockAll(locks);
+        }
+    }
+
+    // Reschedules a batch the same way. Per item the codes of bookAppointments, plus
+    // -4 no appointment with that id and -5 the appointment, or the body's patient, isn't the token's.
+    public int[] updateAppointments(List<Appointment> appointments, String token) {
+        Long patientId = requestPrincipal.resolve(token, "patient").id();
+        int[] results = new int[appointments.size()];
+        List<Long> ids = new ArrayList<>();
+        for (Appointment appointment : appointments) {
+            if (appointment != null && appointment.getId() != null) {
+                ids.add(appointment.getId());
+            }
+        }
+        Map<Long, Appointment> existing = new HashMap<>();
+        for (Appointment appointment : appointmentRepository.findByIdIn(ids)) {
+            existing.put(appointment.getId(), appointment);
+        }
+
+        List<Appointment> candidates = new ArrayList<>();
+        for (int i = 0; i < appointments.size(); i++) {
+            Appointment appointment = appointments.get(i);
+            Appointment previous = appointment == null || appointment.getId() == null ? null
+                    : existing.get(appointment.getId());
+            if (!isComplete(appointment)) {
+                results[i] = -3;
+            } else if (previous == null) {
+                results[i] = -4;
+            } else if (!patientId.equals(previous.getPatient().getId())
+                    || !patientId.equals(appointment.getPatient().getId())) {
+                results[i] = -5;
+            } else {
+                results[i] = 1;
+                candidates.add(appointment);
+            }
+        }
+
+        List<Lock> locks = slotLocks.lockAll(candidates);
+        try {
+            List<Integer> acceptedIndexes = claimSlots(appointments, results);
+            List<Appointment> accepted = new ArrayList<>(acceptedIndexes.size());
+            for (int i : acceptedIndexes) {
+                accepted.add(appointments.get(i));
+            }
+
+            int[] written = appointmentBatchRepository.updateAll(accepted);
+            for (int j = 0; j < written.length; j++) {
+                Appointment appointment = accepted.get(j);
+                results[acceptedIndexes.get(j)] = written[j];
+                if (written[j] == 1) {
+                    Appointment previous = existing.get(appointment.getId());
+                    availabilityIndex.release(previous.getDoctor().getId(), previous.getAppointmentTime());
+                }
+                if (written[j] != -2) {
+                    availabilityIndex.markBooked(appointment.getDoctor().getId(), appointment.getAppointmentTime());
+                }
+            }
+            return results;
+        } finally {
+            slotLocks.unlockAll(locks);
+        }
+    }
+
+    // Checks the items still marked 1 against the index and against each other; must run under
+    // the items' locks. Returns the indexes of the items that can be written.
+    private List<Integer> claimSlots(List<Appointment> appointments, int[] results) {
+        List<Integer> accepted = new ArrayList<>();
+        Set<String> claimed = new HashSet<>();
+        for (int i = 0; i < appointments.size(); i++) {
+            if (results[i] != 1) {
+                continue;
+            }
+            Appointment appointment = appointments.get(i);
+            results[i] = service.validateAppointment(appointment);
+            if (results[i] == 1 && !claimed.add(slotKey(appointment))) {
+                results[i] = 0;
+            }
+            if (results[i] == 1) {
+                accepted.add(i);
+            }
         }
+        return accepted;
+    }
+
+    private static boolean isComplete(Appointment appointment) {
+        return appointment != null && appointment.getDoctor() != null && appointment.getDoctor().getId() != null
+                && appointment.getPatient() != null && appointment.getPatient().getId() != null
+                && appointment.getAppointmentTime() != null
+                && appointment.getAppointmentTime().isAfter(LocalDateTime.now());
+    }
+
+    private static String slotKey(Appointment appointment) {
+        return appointment.getDoctor().getId() + "@" + appointment.getAppointmentTime();
     }
 
     public ResponseEntity<Map<String, String>> updateAppointment(Appointment appointment) {
@@ -64,20 +255,36 @@ public class AppointmentService {
             response.put("message", "Patient Id mismatch");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
-        int out = service.validateAppointment(appointment);
-        if (out == 1) {
-            try {
-                appointmentRepository.save(appointment);
+        Lock lock = slotLocks.lockFor(appointment.getDoctor().getId(), appointment.getAppointmentTime().toLocalDate());
+        lock.lock();
+        int out;
+        try {
+            out = service.validateAppointment(appointment);
+            if (out == 1) {
+                Appointment previous = result.get();
+                appointmentRepository.saveAndFlush(appointment);
+                availabilityIndex.release(previous.getDoctor().getId(), previous.getAppointmentTime());
+                availabilityIndex.markBooked(appointment.getDoctor().getId(), appointment.getAppointmentTime());
                 response.put("message", "Appointment Updated Successfully");
                 return ResponseEntity.status(HttpStatus.OK).body(response);
-
-            } catch (Exception e) {
-                System.out.println("Error: " + e);
+            }
+        } catch (DataIntegrityViolationException e) {
+            if (!AppointmentRepository.isSlotTaken(e)) {
+                log.error("Error updating appointment", e);
                 response.put("message", "Internal Server Error");
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
             }
+            availabilityIndex.markBooked(appointment.getDoctor().getId(), appointment.getAppointmentTime());
+            out = 0;
+        } catch (Exception e) {
+            log.error("Error updating appointment", e);
+            response.put("message", "Internal Server Error");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        } finally {
+            lock.unlock();
+        }
 
-        } else if (out == -1) {
+        if (out == -1) {
             response.put("message", "Invalid doctor id");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
@@ -90,9 +297,8 @@ public class AppointmentService {
     public ResponseEntity<Map<String, String>> cancelAppointment(long id, String token) {
         Map<String, String> response = new HashMap<>();
         Optional<Appointment> appointment = appointmentRepository.findById(id);
-        String extractedToken = tokenService.extractEmail(token);
-        Patient patient = patientRepository.findByEmail(extractedToken);
-        if (patient.getId() != appointment.get().getPatient().getId()) {
+        Long patientId = requestPrincipal.resolve(token, "patient").id();
+        if (!patientId.equals(appointment.get().getPatient().getId())) {
             response.put("message", "Patient Id mismatch");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
@@ -100,10 +306,12 @@ public class AppointmentService {
         if (appointment.isPresent()) {
             try {
                 appointmentRepository.delete(appointment.get());
+                availabilityIndex.release(appointment.get().getDoctor().getId(),
+                        appointment.get().getAppointmentTime());
                 response.put("message", "Appointment Deleted Successfully");
                 return ResponseEntity.status(HttpStatus.OK).body(response);
             } catch (Exception e) {
-                System.out.println("Error: " + e);
+                log.error("Error cancelling appointment", e);
                 response.put("message", "Internal Server Error");
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
             }
@@ -112,45 +320,87 @@ public class AppointmentService {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
 
-    @Transactional
-    public Map<String, Object> getAppointment(String pname, LocalDate date, String token) {
+    // withPrescriptionFlag also sets hasPrescription on every row, with one Mongo query for the whole day
+    @Transactional(readOnly = true)
+    public Map<String, Object> getAppointment(String pname, LocalDate date, String token,
+            boolean withPrescriptionFlag) {
         Map<String, Object> map = new HashMap<>();
-        String extractedEmail = tokenService.extractEmail(token);
-        Long doctorId = doctorRepository.findByEmail(extractedEmail).getId();
-        LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
+        Long doctorId = requestPrincipal.resolve(token, "doctor").id();
 
-        List<Appointment> appointments;
+        // The day is read through the (doctor_id, appointment_time) index; a patient name only
+        // narrows those few rows, in memory, instead of a LIKE on every patient name
+        List<AppointmentDTO> appointments = appointmentRepository
+                .findByDoctorIdAndAppointmentTimeBetween(doctorId, date.atStartOfDay(), date.atTime(LocalTime.MAX));
 
-        if (pname.equals("null")) {
-            // If pname is null or empty, fetch all appointments for that date
+        if (!pname.equals("null")) {
+            String nameKey = pname.toLowerCase(Locale.ROOT);
+            appointments.removeIf(appointment -> appointment.getPatientName() == null
+                    || !appointment.getPatientName().toLowerCase(Locale.ROOT).contains(nameKey));
+        }
 
-            appointments = appointmentRepository
-                    .findByDoctorIdAndAppointmentTimeBetween(doctorId, startOfDay, endOfDay);
+        if (withPrescriptionFlag) {
+            Set<Long> found = prescriptionService.withPrescription(
+                    appointments.stream().map(AppointmentDTO::getId).toList());
+            for (AppointmentDTO appointment : appointments) {
+                appointment.setHasPrescription(found.contains(appointment.getId()));
+            }
+        }
+
+        map.put("appointments", appointments);
+        return map;
+
+    }
+
+    // The ids among appointmentIds that belong to the token's doctor; prescriptions are only
+    // looked up for those
+    @Transactional(readOnly = true)
+    public List<Long> findOwnAppointmentIds(List<Long> appointmentIds, String token) {
+        Long doctorId = requestPrincipal.resolve(token, "doctor").id();
+        return appointmentIds.isEmpty() ? List.of()
+                : appointmentRepository.findIdsByIdInAndDoctorId(appointmentIds, doctorId);
+    }
+
+    // The doctor's appointments among the ids together with their prescriptions. On virtual threads the
+    // MySQL and the Mongo query run at the same time on the task executor; otherwise one after the other
+    // on the request thread, with Mongo only asked about the appointments MySQL returned.
+    public Map<String, Object> getAppointmentsWithPrescriptions(List<Long> appointmentIds, String token) {
+        Long doctorId = requestPrincipal.resolve(token, "doctor").id();
+        List<AppointmentDTO> found;
+        Map<Long, Prescription> all;
+        if (concurrentReads) {
+            CompletableFuture<List<AppointmentDTO>> appointments = CompletableFuture.supplyAsync(
+                    () -> appointmentRepository.findByIdInAndDoctorId(appointmentIds, doctorId), executor);
+            CompletableFuture<Map<Long, Prescription>> prescriptions = CompletableFuture.supplyAsync(
+                    () -> prescriptionService.findByAppointmentIds(appointmentIds), executor);
+            found = join(appointments);
+            all = join(prescriptions);
         } else {
-            // Filter by patient name
-            appointments = appointmentRepository
-                    .findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
-                            doctorId, pname, startOfDay, endOfDay);
-        }
-
-        List<AppointmentDTO> appointmentDTOs = appointments.stream()
-                .map(app -> new AppointmentDTO(
-                        app.getId(),
-                        app.getDoctor().getId(), // Simplified doctor info
-                        app.getDoctor().getName(),
-                        app.getPatient().getId(),
-                        app.getPatient().getName(),
-                        app.getPatient().getEmail(),
-                        app.getPatient().getPhone(),
-                        app.getPatient().getAddress(),
-                        app.getAppointmentTime(),
-                        app.getStatus()))
-                .collect(Collectors.toList());
-
-        map.put("appointments", appointmentDTOs);
+            found = appointmentRepository.findByIdInAndDoctorId(appointmentIds, doctorId);
+            all = prescriptionService.findByAppointmentIds(found.stream().map(AppointmentDTO::getId).toList());
+        }
+
+        Map<String, Object> map = new HashMap<>();
+        // Only hand out prescriptions of the doctor's own appointments
+        Map<Long, Prescription> own = new HashMap<>();
+        for (AppointmentDTO appointment : found) {
+            Prescription prescription = all.get(appointment.getId());
+            appointment.setHasPrescription(prescription != null);
+            if (prescription != null) {
+                own.put(appointment.getId(), prescription);
+            }
+        }
+        map.put("appointments", found);
+        map.put("prescriptions", own);
         return map;
+    }
 
+    // Waits for a query started on the executor and rethrows its own exception
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
     }
 
     @Transactional
@@ -0,0 +1,275 @@
+package com.project.back_end.services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.TimeSlot;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+
+// In-memory view of which of a doctor's slots are booked on a given day.
+// Each doctor+day is loaded from MySQL and then kept up to date by this instance's
+// appointment write paths, so availability reads don't hit the database. Writes made
+// on other instances aren't seen here, so entries are read again after TTL at the latest.
+@Component
+public class AvailabilityIndex {
+
+    // How long a loaded doctor or day is trusted; patching a day doesn't extend it
+    static final Duration TTL = Duration.ofSeconds(30);
+    private static final int MAX_CACHED_DOCTORS = 10_000;
+    private static final int MAX_CACHED_DAYS = 200_000;
+
+    private final DoctorRepository doctorRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final DoctorVersions doctorVersions;
+
+    // doctorId -> the doctor's slots, in the order of Doctor.availableTimes
+    private final Cache<Long, DoctorSlots> slotsByDoctor;
+
+    // doctor+day -> positions of booked slots; bitsets are never mutated once published
+    private final Cache<DayKey, BitSet> bookedByDay;
+
+    // Count of writes per stripe of doctors; a load only caches what it read if no write to the
+    // doctor happened while it was reading (see bookedRange)
+    private static final int WRITE_STRIPES = 64;
+    private final AtomicLongArray writes = new AtomicLongArray(WRITE_STRIPES);
+
+    private record DayKey(long doctorId, LocalDate date) {
+    }
+
+    // labels are the original strings, slots the same entries packed by TimeSlot
+    private record DoctorSlots(List<String> labels, int[] slots) {
+
+        int positionOf(int slot) {
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] == slot) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    public AvailabilityIndex(DoctorRepository doctorRepository, AppointmentRepository appointmentRepository,
+            DoctorVersions doctorVersions) {
+        this.doctorRepository = doctorRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.doctorVersions = doctorVersions;
+        this.slotsByDoctor = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_DOCTORS)
+                .expireAfterWrite(TTL)
+                .build();
+        // Past days simply expire; the TTL runs from the load, not from the last patch by update(...)
+        this.bookedByDay = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_DAYS)
+                .expireAfter(new Expiry<DayKey, BitSet>() {
+                    @Override
+                    public long expireAfterCreate(DayKey key, BitSet booked, long currentTime) {
+                        return TTL.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(DayKey key, BitSet booked, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(DayKey key, BitSet booked, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public boolean hasDoctor(Long doctorId) {
+        return slots(doctorId) != null;
+    }
+
+    // Returns the free slots of the doctor on the given date, or null if the doctor does not exist
+    public List<String> freeSlots(Long doctorId, LocalDate date) {
+        DoctorSlots slots = slots(doctorId);
+        if (slots == null) {
+            return null;
+        }
+        return free(slots, booked(doctorId, date, slots));
+    }
+
+    // Free slots for every day from `from` to `to` inclusive, in date order, or null if the doctor does
+    // not exist. The days that aren't cached yet are read with one query over their span.
+    public Map<LocalDate, List<String>> freeSlots(Long doctorId, LocalDate from, LocalDate to) {
+        DoctorSlots slots = slots(doctorId);
+        if (slots == null) {
+            return null;
+        }
+        Map<LocalDate, List<String>> free = new LinkedHashMap<>();
+        bookedRange(doctorId, from, to, slots).forEach((date, booked) -> free.put(date, free(slots, booked)));
+        return free;
+    }
+
+    // True when the given time is the start of one of the doctor's slots and that slot is still free.
+    // A cached "booked" may be a cancellation made on another instance, so it is read again before
+    // the booking is turned down; a cached "free" needs no check, the unique key refuses a taken slot.
+    public boolean isFree(Long doctorId, LocalDateTime time) {
+        DoctorSlots slots = slots(doctorId);
+        if (slots == null || time.getSecond() != 0 || time.getNano() != 0) {
+            return false;
+        }
+        int position = positionStarting(slots, time.getHour() * 60 + time.getMinute());
+        if (position < 0) {
+            return false;
+        }
+        DayKey key = new DayKey(doctorId, time.toLocalDate());
+        BitSet cached = bookedByDay.getIfPresent(key);
+        if (cached != null && !cached.get(position)) {
+            return true;
+        }
+        if (cached != null) {
+            bookedByDay.asMap().remove(key, cached);
+        }
+        return !booked(doctorId, time.toLocalDate(), slots).get(position);
+    }
+
+    public void markBooked(Long doctorId, LocalDateTime time) {
+        update(doctorId, time, true);
+    }
+
+    public void release(Long doctorId, LocalDateTime time) {
+        update(doctorId, time, false);
+    }
+
+    // Drops everything known about the doctor; used when the doctor's slots change or the doctor is removed
+    public void evictDoctor(Long doctorId) {
+        writes.incrementAndGet(stripe(doctorId));
+        slotsByDoctor.invalidate(doctorId);
+        bookedByDay.asMap().keySet().removeIf(key -> key.doctorId() == doctorId);
+    }
+
+    // Read outside the cache, as a mapping function must not run queries; like bookedRange, the result
+    // is only cached if the doctor wasn't evicted meanwhile
+    private DoctorSlots slots(Long doctorId) {
+        DoctorSlots cached = slotsByDoctor.getIfPresent(doctorId);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = stripe(doctorId);
+        long version = writes.get(stripe);
+        Optional<Doctor> doctor = doctorRepository.findWithAvailableTimesById(doctorId);
+        if (doctor.isEmpty()) {
+            return null;
+        }
+        List<String> times = doctor.get().getAvailableTimes();
+        DoctorSlots read = new DoctorSlots(times == null ? List.of() : List.copyOf(times), doctor.get().getSlots());
+        DoctorSlots published = slotsByDoctor.asMap().compute(doctorId,
+                (id, current) -> current != null ? current : writes.get(stripe) == version ? read : null);
+        return published != null ? published : read;
+    }
+
+    private static int positionStarting(DoctorSlots slots, int startMinute) {
+        int[] packed = slots.slots();
+        for (int i = 0; i < packed.length; i++) {
+            if (packed[i] != TimeSlot.INVALID && TimeSlot.startMinute(packed[i]) == startMinute) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static List<String> free(DoctorSlots slots, BitSet booked) {
+        List<String> free = new ArrayList<>(slots.labels().size());
+        for (int i = 0; i < slots.labels().size(); i++) {
+            if (!booked.get(i)) {
+                free.add(slots.labels().get(i));
+            }
+        }
+        return free;
+    }
+
+    private BitSet booked(long doctorId, LocalDate date, DoctorSlots slots) {
+        return bookedRange(doctorId, date, date, slots).get(date);
+    }
+
+    // The query runs outside the cache: it covers many keys, and a mapping function must not block
+    // others. A write landing after the query could then be lost: update(...) finds no day to patch
+    // and the stale day gets cached. Days are therefore only cached if the doctor's write count is
+    // still the one read before the query; otherwise they answer this call and the next read loads
+    // them again.
+    private Map<LocalDate, BitSet> bookedRange(long doctorId, LocalDate from, LocalDate to, DoctorSlots slots) {
+        Map<LocalDate, BitSet> booked = new LinkedHashMap<>();
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            BitSet cached = bookedByDay.getIfPresent(new DayKey(doctorId, date));
+            booked.put(date, cached);
+            if (cached == null) {
+                firstMissing = firstMissing == null ? date : firstMissing;
+                lastMissing = date;
+            }
+        }
+        if (firstMissing == null) {
+            return booked;
+        }
+        int stripe = stripe(doctorId);
+        long version = writes.get(stripe);
+        Map<LocalDate, BitSet> loaded = new HashMap<>();
+        List<LocalDateTime> times = appointmentRepository.findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(
+                doctorId, firstMissing.atStartOfDay(), lastMissing.atTime(LocalTime.MAX));
+        for (LocalDateTime time : times) {
+            int position = slots.positionOf(TimeSlot.ofAppointment(time));
+            if (position >= 0) {
+                loaded.computeIfAbsent(time.toLocalDate(), d -> new BitSet(slots.slots().length)).set(position);
+            }
+        }
+        for (Map.Entry<LocalDate, BitSet> day : booked.entrySet()) {
+            if (day.getValue() != null) {
+                continue;
+            }
+            BitSet read = loaded.getOrDefault(day.getKey(), new BitSet(slots.slots().length));
+            // compute holds the key like update(...)'s computeIfPresent does, so a write either bumped
+            // the count before this check or patches the cached day after it
+            BitSet cached = bookedByDay.asMap().compute(new DayKey(doctorId, day.getKey()),
+                    (key, current) -> current != null ? current : writes.get(stripe) == version ? read : null);
+            day.setValue(cached != null ? cached : read);
+        }
+        return booked;
+    }
+
+    private static int stripe(long doctorId) {
+        return Long.hashCode(doctorId) & (WRITE_STRIPES - 1);
+    }
+
+    private void update(Long doctorId, LocalDateTime time, boolean bookedValue) {
+        writes.incrementAndGet(stripe(doctorId));
+        doctorVersions.appointmentsChanged();
+        DoctorSlots slots = slotsByDoctor.getIfPresent(doctorId);
+        if (slots == null || time == null) {
+            return;
+        }
+        int position = slots.positionOf(TimeSlot.ofAppointment(time));
+        if (position < 0) {
+            return;
+        }
+        // Days that were never loaded will read the write from MySQL when they are
+        bookedByDay.asMap().computeIfPresent(new DayKey(doctorId, time.toLocalDate()), (key, current) -> {
+            BitSet next = (BitSet) current.clone();
+            next.set(position, bookedValue);
+            return next;
+        });
+    }
+}
@@ -0,0 +1,102 @@
+package com.project.back_end.services;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.project.back_end.DTO.DoctorDTO;
+import com.project.back_end.repo.DoctorRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Read-through cache of the whole, unfiltered doctor directory. Each snapshot is an immutable list
+// of DoctorDTOs loaded in the background with one query; doctor writes replace it with a fresh load.
+// Filtered listings don't come from here but from the indexed SQL filters in DoctorService.
+@Component
+public class DoctorDirectoryCache {
+
+    private final DoctorRepository doctorRepository;
+    private final Executor executor;
+    private final DoctorVersions doctorVersions;
+    private final Counter hits;
+    private final Counter misses;
+
+    private final AtomicReference<CompletableFuture<List<DoctorDTO>>> snapshot = new AtomicReference<>();
+
+    public DoctorDirectoryCache(DoctorRepository doctorRepository,
+            @Qualifier("applicationTaskExecutor") Executor executor, MeterRegistry meterRegistry,
+            DoctorVersions doctorVersions) {
+        this.doctorRepository = doctorRepository;
+        this.executor = executor;
+        this.doctorVersions = doctorVersions;
+        this.hits = Counter.builder("cache.gets").tag("cache", "doctorDirectory").tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "doctorDirectory").tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        current();
+    }
+
+    // Waits for the snapshot if it is still loading
+    public List<DoctorDTO> getDoctors() {
+        CompletableFuture<List<DoctorDTO>> current = current();
+        record(current);
+        try {
+            return current.join();
+        } catch (CompletionException e) {
+            // Don't keep a failed load around, the next read starts a new one
+            snapshot.compareAndSet(current, null);
+            throw e;
+        }
+    }
+
+    // Called after every doctor write; readers from here on only see a snapshot loaded after the write
+    public void invalidate() {
+        CompletableFuture<List<DoctorDTO>> fresh = new CompletableFuture<>();
+        snapshot.set(fresh);
+        doctorVersions.doctorsChanged();
+        load(fresh);
+    }
+
+    private CompletableFuture<List<DoctorDTO>> current() {
+        CompletableFuture<List<DoctorDTO>> current = snapshot.get();
+        while (current == null) {
+            CompletableFuture<List<DoctorDTO>> fresh = new CompletableFuture<>();
+            if (snapshot.compareAndSet(null, fresh)) {
+                load(fresh);
+                return fresh;
+            }
+            current = snapshot.get();
+        }
+        return current;
+    }
+
+    private void load(CompletableFuture<List<DoctorDTO>> target) {
+        executor.execute(() -> {
+            try {
+                target.complete(doctorRepository.findAllWithAvailableTimes().stream().map(DoctorDTO::from).toList());
+            } catch (Throwable e) {
+                target.completeExceptionally(e);
+            }
+        });
+    }
+
+    private void record(CompletableFuture<List<DoctorDTO>> current) {
+        if (current.isDone() && !current.isCompletedExceptionally()) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+    }
+}
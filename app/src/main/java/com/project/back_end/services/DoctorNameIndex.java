@@ -0,0 +1,142 @@
+package com.project.back_end.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.project.back_end.repo.DoctorRepository;
+
+// Doctor ids by name, for the doctor filters and the patient's doctor-name filter. Loaded from
+// MySQL (ids and names only) on first use and kept in sync by this instance's DoctorService write
+// paths. Doctors written by other instances or outside DoctorService are picked up by a reload in
+// the background once the index is older than RELOAD_AFTER; searches keep using the old one meanwhile.
+@Component
+public class DoctorNameIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorNameIndex.class);
+
+    static final Duration RELOAD_AFTER = Duration.ofSeconds(60);
+
+    // Callers with more matching ids than this filter a broader query by the ids instead of
+    // sending them all as an IN list; a short query like "dr" matches most of the directory
+    public static final int MAX_IDS_PER_QUERY = 500;
+
+    private final DoctorRepository doctorRepository;
+    private final Executor executor;
+
+    // null until loaded; writes and loads hold the monitor, searches read it without a lock
+    private volatile NameIndex names;
+    private volatile long loadedAt;
+
+    // Writes made while a reload reads MySQL, replayed onto the reloaded index; null when not reloading
+    private List<Consumer<NameIndex>> writesDuringReload;
+    // Held for a whole reload, so reloads run one at a time and each reads MySQL after it was called
+    private final Object reloadLock = new Object();
+    private final AtomicBoolean reloadScheduled = new AtomicBoolean();
+
+    public DoctorNameIndex(DoctorRepository doctorRepository,
+            @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.doctorRepository = doctorRepository;
+        this.executor = executor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        loaded();
+    }
+
+    // Ids of the doctors whose name contains the given text, ignoring case
+    public Set<Long> search(String name) {
+        NameIndex current = loaded();
+        if (System.nanoTime() - loadedAt > RELOAD_AFTER.toNanos() && reloadScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    reload();
+                } catch (RuntimeException e) {
+                    // Keep serving the old index, the next search after RELOAD_AFTER tries again
+                    log.warn("Reloading the doctor name index failed", e);
+                } finally {
+                    reloadScheduled.set(false);
+                }
+            });
+        }
+        return current.search(name);
+    }
+
+    // Before the first load there is nothing to update, the load reads the doctor from MySQL
+    public synchronized void put(Long id, String name) {
+        write(index -> index.put(id, name));
+    }
+
+    public synchronized void remove(Long id) {
+        write(index -> index.remove(id));
+    }
+
+    // Reads every doctor again and swaps the result in, e.g. after a bulk import; searches don't wait
+    // for it. Writes made while MySQL is read are applied to both the old and the reloaded index.
+    public void reload() {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                if (names == null) {
+                    loaded();
+                    return;
+                }
+                writesDuringReload = new ArrayList<>();
+            }
+            try {
+                NameIndex fresh = read();
+                synchronized (this) {
+                    writesDuringReload.forEach(write -> write.accept(fresh));
+                    names = fresh;
+                    loadedAt = System.nanoTime();
+                }
+            } finally {
+                synchronized (this) {
+                    writesDuringReload = null;
+                }
+            }
+        }
+    }
+
+    private void write(Consumer<NameIndex> write) {
+        if (names != null) {
+            write.accept(names);
+        }
+        if (writesDuringReload != null) {
+            writesDuringReload.add(write);
+        }
+    }
+
+    private NameIndex loaded() {
+        NameIndex current = names;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (names == null) {
+                names = read();
+                loadedAt = System.nanoTime();
+            }
+            return names;
+        }
+    }
+
+    private NameIndex read() {
+        NameIndex fresh = new NameIndex();
+        for (Object[] row : doctorRepository.findIdsAndNames()) {
+            fresh.put((Long) row[0], (String) row[1]);
+        }
+        return fresh;
+    }
+}
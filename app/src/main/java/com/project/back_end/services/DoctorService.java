@@ -2,82 +2,98 @@ package com.project.back_end.services;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.project.back_end.DTO.DoctorDTO;
 import com.project.back_end.DTO.Login;
-import com.project.back_end.models.Appointment;
+import com.project.back_end.DTO.OpenSlot;
 import com.project.back_end.models.Doctor;
+import com.project.back_end.models.TimeSlot;
 import com.project.back_end.repo.AppointmentRepository;
 import com.project.back_end.repo.DoctorRepository;
 
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
 
+@Timed("app.service")
 @Service
 public class DoctorService {
 
+    private static final Logger log = LoggerFactory.getLogger(DoctorService.class);
+
+    // Earliest-slot searches look this many days ahead, reading appointments a window at a time,
+    // so a search costs at most HORIZON / WINDOW appointment queries
+    private static final int EARLIEST_SLOT_HORIZON_DAYS = 28;
+    private static final int EARLIEST_SLOT_WINDOW_DAYS = 7;
+
     private final DoctorRepository doctorRepository;
 
     private final AppointmentRepository appointmentRepository;
 
     private final TokenService tokenService;
 
+    private final AvailabilityIndex availabilityIndex;
+
+    private final DoctorDirectoryCache doctorDirectoryCache;
+
+    private final DoctorNameIndex doctorNameIndex;
+
     public DoctorService(DoctorRepository doctorRepository, AppointmentRepository appointmentRepository,
-            TokenService tokenService) {
+            TokenService tokenService, AvailabilityIndex availabilityIndex,
+            DoctorDirectoryCache doctorDirectoryCache, DoctorNameIndex doctorNameIndex) {
         this.doctorRepository = doctorRepository;
         this.appointmentRepository = appointmentRepository;
         this.tokenService = tokenService;
+        this.availabilityIndex = availabilityIndex;
+        this.doctorDirectoryCache = doctorDirectoryCache;
+        this.doctorNameIndex = doctorNameIndex;
     }
 
 
-    @Transactional
     public List<String> getDoctorAvailability(Long doctorId, LocalDate date) {
-        Optional<Doctor> doctor = doctorRepository.findById(doctorId);
+        List<String> availableSlots = availabilityIndex.freeSlots(doctorId, date);
 
-        if (doctor.isEmpty()) {
+        if (availableSlots == null) {
             return List.of("Doctor not found with ID: " + doctorId);
         }
+        return availableSlots;
+    }
 
-        List<String> availableSlots = doctor.get().getAvailableTimes().stream()
-                .map(Object::toString)
-                .collect(Collectors.toList());
-
-        // Convert LocalDate to LocalDateTime (start and end of the day)
-        LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
-
-        // Fetch the appointments for this doctor on the given date
-        List<Appointment> appointments = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId,
-                startOfDay, endOfDay);
-
-        // Set of booked slots for the doctor on this date
-        Set<String> bookedSlots = appointments.stream()
-                .map(appt -> {
-                    LocalDateTime start = appt.getAppointmentTime();
-                    LocalDateTime end = start.plusHours(1); // Add 1 hour to the start time to get the end time
-                    return formatSlot(start, end); // Format the slot as "HH:mm-HH:mm"
-                })
-                .collect(Collectors.toSet());
-
-        // Filter out booked slots from the available slots
-        return availableSlots.stream()
-                .filter(slot -> !bookedSlots.contains(slot))
-                .collect(Collectors.toList());
+    // Free slots per day from `from` to `to`, or null if the doctor does not exist. Left on the primary
+    // like the single day: the days read here are cached by AvailabilityIndex and validate bookings.
+    public Map<LocalDate, List<String>> getDoctorAvailability(Long doctorId, LocalDate from, LocalDate to) {
+        return availabilityIndex.freeSlots(doctorId, from, to);
     }
 
-    private String formatSlot(LocalDateTime start, LocalDateTime end) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
-        return start.format(formatter) + "-" + end.format(formatter);
+    // The first `count` free slots across the doctors of a specialty, earliest first; amOrPm, when given,
+    // keeps only morning or afternoon slots. The doctors come from the indexed specialty filter.
+    @Transactional(readOnly = true)
+    public List<OpenSlot> findEarliestSlots(String specialty, String amOrPm, int count) {
+        String specialtyKey = Doctor.normalizeSpecialty(specialty);
+        List<Doctor> doctors = amOrPm == null || amOrPm.isBlank() ? doctorRepository.findBySpecialtyKey(specialtyKey)
+                : bySpecialtyAndDayPart(specialtyKey, amOrPm);
+        int dayParts = amOrPm == null || amOrPm.isBlank() ? TimeSlot.MORNING | TimeSlot.AFTERNOON
+                : isMorning(amOrPm) ? TimeSlot.MORNING : TimeSlot.AFTERNOON;
+        return new EarliestSlotSearch(appointmentRepository, doctors, LocalDateTime.now(),
+                EARLIEST_SLOT_HORIZON_DAYS, EARLIEST_SLOT_WINDOW_DAYS).first(count, dayParts);
     }
 
     public int saveDoctor(Doctor doctor) {
@@ -89,10 +105,13 @@ public class DoctorService {
             return -1;
         }
         try {
-            doctorRepository.save(doctor);
+            doctor.refreshFacets();
+            Doctor saved = doctorRepository.save(doctor);
+            doctorNameIndex.put(saved.getId(), saved.getName());
+            doctorDirectoryCache.invalidate();
             return 1;
         } catch (Exception e) {
-            System.err.println("Error saving doctor: " + e.getMessage());
+            log.error("Error saving doctor", e);
             return 0;
         }
 
@@ -105,21 +124,23 @@ public class DoctorService {
             return -1;
         }
         try {
+            doctor.refreshFacets();
             doctorRepository.save(doctor);
+            doctorNameIndex.put(doctor.getId(), doctor.getName());
+            availabilityIndex.evictDoctor(doctor.getId());
+            tokenService.evictPrincipal("doctor", doctor.getId());
+            doctorDirectoryCache.invalidate();
             return 1;
         } catch (Exception e) {
-            System.err.println("Error saving doctor: " + e.getMessage());
+            log.error("Error updating doctor", e);
             return 0;
         }
 
     }
 
-    @Transactional
-    public List<Doctor> getDoctors() {
-        List<Doctor> doctors = doctorRepository.findAll();
-        // Optionally touch the collection to force loading:
-        doctors.forEach(doc -> doc.getAvailableTimes().size());
-        return doctors;
+    // The whole directory, from the cache
+    public List<DoctorDTO> getDoctors() {
+        return doctorDirectoryCache.getDoctors();
     }
 
     public int deleteDoctor(long id) {
@@ -131,9 +152,13 @@ public class DoctorService {
         try {
             appointmentRepository.deleteAllByDoctorId(doctor.get().getId());
             doctorRepository.delete(doctor.get());
+            doctorNameIndex.remove(id);
+            availabilityIndex.evictDoctor(id);
+            tokenService.evictPrincipal("doctor", id);
+            doctorDirectoryCache.invalidate();
             return 1;
         } catch (Exception e) {
-            System.err.println("Error saving doctor: " + e.getMessage());
+            log.error("Error deleting doctor", e);
             return 0;
         }
     }
@@ -145,7 +170,7 @@ public class DoctorService {
             Doctor doctor = doctorRepository.findByEmail(login.getEmail());
             if (doctor != null) {
                 if (doctor.getPassword().equals(login.getPassword())) {
-                    map.put("token", tokenService.generateToken(doctor.getEmail()));
+                    map.put("token", tokenService.generateToken(doctor.getEmail(), "doctor", doctor.getId()));
                     return ResponseEntity.status(HttpStatus.OK).body(map);
                 } else {
                     map.put("error", "Password does not match");
@@ -156,107 +181,149 @@ public class DoctorService {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(map);
 
         } catch (Exception e) {
-            System.out.println("Error: " + e);
+            log.error("Error validating doctor login", e);
             map.put("error", "Internal Server error");
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(map);
         }
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Map<String, Object> findDoctorByName(String name) {
         Map<String, Object> map = new HashMap<>();
-        List<Doctor> doctorList = doctorRepository.findByNameLike(name);
-        doctorList.forEach(doc -> doc.getAvailableTimes().size());
+        List<Doctor> doctorList = byName(name, doctorRepository::findByIdIn,
+                doctorRepository::findAllWithAvailableTimes);
         map.put("doctors", doctorList);
         return map;
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Map<String, Object> filterDoctorsByNameSpecilityandTime(String name, String specialty, String amOrPm) {
+        if (amOrPm == null || amOrPm.isBlank()) {
+            return filterDoctorByNameAndSpecility(name, specialty);
+        }
         Map<String, Object> map = new HashMap<>();
-
-        List<Doctor> doctors = doctorRepository.findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(name, specialty);
-
-        List<Doctor> filteredDoctors = filterDoctorByTime(doctors,amOrPm);
-
-        map.put("doctors", filteredDoctors);
+        String specialtyKey = Doctor.normalizeSpecialty(specialty);
+        List<Doctor> doctors = byName(name, ids -> isMorning(amOrPm)
+                ? doctorRepository.findByIdInAndSpecialtyKeyAndHasMorningSlotsTrue(ids, specialtyKey)
+                : doctorRepository.findByIdInAndSpecialtyKeyAndHasAfternoonSlotsTrue(ids, specialtyKey),
+                () -> bySpecialtyAndDayPart(specialtyKey, amOrPm));
+        map.put("doctors", doctors);
         return map;
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Map<String, Object> filterDoctorByNameAndTime(String name, String amOrPm) {
+        if (amOrPm == null || amOrPm.isBlank()) {
+            return findDoctorByName(name);
+        }
         Map<String, Object> map = new HashMap<>();
-
-        // Step 1: Fetch by name (partial match)
-        List<Doctor> doctors = doctorRepository.findByNameLike(name);
-
-        // Step 2: Filter by AM/PM
-        List<Doctor> filteredDoctors = filterDoctorByTime(doctors,amOrPm);
-
-        map.put("doctors", filteredDoctors);
+        List<Doctor> doctors = byName(name, ids -> isMorning(amOrPm)
+                ? doctorRepository.findByIdInAndHasMorningSlotsTrue(ids)
+                : doctorRepository.findByIdInAndHasAfternoonSlotsTrue(ids),
+                () -> isMorning(amOrPm) ? doctorRepository.findByHasMorningSlotsTrue()
+                        : doctorRepository.findByHasAfternoonSlotsTrue());
+        map.put("doctors", doctors);
         return map;
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Map<String, Object> filterDoctorByNameAndSpecility(String name, String specilty) {
         Map<String, Object> map = new HashMap<>();
-        List<Doctor> doctorList = doctorRepository.findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(name, specilty);
-        doctorList.forEach(doc -> doc.getAvailableTimes().size());
+        String specialtyKey = Doctor.normalizeSpecialty(specilty);
+        List<Doctor> doctorList = byName(name, ids -> doctorRepository.findByIdInAndSpecialtyKey(ids, specialtyKey),
+                () -> doctorRepository.findBySpecialtyKey(specialtyKey));
         map.put("doctors", doctorList);
         return map;
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Map<String, Object> filterDoctorByTimeAndSpecility(String specilty, String amOrPm) {
+        if (amOrPm == null || amOrPm.isBlank()) {
+            return filterDoctorBySpecility(specilty);
+        }
         Map<String, Object> map = new HashMap<>();
-        List<Doctor> doctors = doctorRepository.findBySpecialtyIgnoreCase(specilty);
-        List<Doctor> filteredDoctors = filterDoctorByTime(doctors,amOrPm);
-        map.put("doctors", filteredDoctors);
+        List<Doctor> doctors = bySpecialtyAndDayPart(Doctor.normalizeSpecialty(specilty), amOrPm);
+        map.put("doctors", doctors);
         return map;
 
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Map<String, Object> filterDoctorBySpecility(String specilty) {
         Map<String, Object> map = new HashMap<>();
-        List<Doctor> doctorList = doctorRepository.findBySpecialtyIgnoreCase(specilty);
-        doctorList.forEach(doc -> doc.getAvailableTimes().size());
+        List<Doctor> doctorList = doctorRepository.findBySpecialtyKey(Doctor.normalizeSpecialty(specilty));
         map.put("doctors", doctorList);
         return map;
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Map<String, Object> filterDoctorsByTime(String amOrPm) {
+        if (amOrPm == null || amOrPm.isBlank()) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("doctors", getDoctors());
+            return map;
+        }
         Map<String, Object> map = new HashMap<>();
-        List<Doctor> doctors = doctorRepository.findAll();
-        List<Doctor> filteredDoctors = filterDoctorByTime(doctors,amOrPm);
-        map.put("doctors", filteredDoctors);
+        List<Doctor> doctors = isMorning(amOrPm) ? doctorRepository.findByHasMorningSlotsTrue()
+                : doctorRepository.findByHasAfternoonSlotsTrue();
+        map.put("doctors", doctors);
         return map;
     }
 
+    // Doctors saved before the facet columns existed have no specialty key yet. The directory is
+    // reloaded once the backfill has committed, so the reload can't read the doctors without it.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillFacets() {
+        List<Doctor> doctors = doctorRepository.findBySpecialtyKeyIsNull();
+        if (doctors.isEmpty()) {
+            return;
+        }
+        doctors.forEach(Doctor::refreshFacets);
+        doctorRepository.saveAll(doctors);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                doctorDirectoryCache.invalidate();
+            }
+        });
+    }
 
     public  List<Doctor> filterDoctorByTime(List<Doctor> doctors,String amOrPm)
     {
+        if (amOrPm == null || amOrPm.isBlank())
+            return doctors;
+
+        // Invalid time slots never set a day part bit, so they are skipped
+        int dayPart = isMorning(amOrPm) ? TimeSlot.MORNING : TimeSlot.AFTERNOON;
         return doctors.stream()
-        .filter(doctor -> {
-            if (amOrPm == null || amOrPm.isBlank())
-                return true;
-
-            boolean isAM = amOrPm.equalsIgnoreCase("am");
-            return doctor.getAvailableTimes().stream().anyMatch(slot -> {
-                try {
-                    String startHourStr = slot.split("-")[0].split(":")[0]; // e.g. "09"
-                    int hour = Integer.parseInt(startHourStr);
-                    return isAM ? hour < 12 : hour >= 12;
-                } catch (Exception e) {
-                    return false; // Skip invalid time slots
-                }
-            });
-        })
+        .filter(doctor -> (doctor.getDayParts() & dayPart) != 0)
         .collect(Collectors.toList());
     }
 
+    // Runs the query on the ids of the doctors named like `name`; no query when no name matches. When
+    // the name matches more doctors than an IN list should carry, the same filter without the name
+    // is run instead and its rows are kept by id.
+    private List<Doctor> byName(String name, Function<Set<Long>, List<Doctor>> query,
+            Supplier<List<Doctor>> withoutName) {
+        Set<Long> ids = doctorNameIndex.search(name);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (ids.size() > DoctorNameIndex.MAX_IDS_PER_QUERY) {
+            return withoutName.get().stream().filter(doctor -> ids.contains(doctor.getId()))
+                    .collect(Collectors.toList());
+        }
+        return query.apply(ids);
+    }
+
+    private List<Doctor> bySpecialtyAndDayPart(String specialtyKey, String amOrPm) {
+        return isMorning(amOrPm) ? doctorRepository.findBySpecialtyKeyAndHasMorningSlotsTrue(specialtyKey)
+                : doctorRepository.findBySpecialtyKeyAndHasAfternoonSlotsTrue(specialtyKey);
+    }
 
+    private static boolean isMorning(String amOrPm) {
+        return amOrPm.equalsIgnoreCase("am");
+    }
 
-   
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.project.back_end.services;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.stereotype.Component;
+
+// Versions behind the ETag and Last-Modified headers of the DoctorController reads. Doctor writes
+// change both, appointment writes only the availability one. Tags are per instance and carry the
+// boot time, so neither a restart nor another instance hands out a tag it didn't compute.
+@Component
+public class DoctorVersions {
+
+    public record Version(String etag, Instant lastModified) {
+    }
+
+    private final long boot = System.currentTimeMillis();
+    private final AtomicLong counter = new AtomicLong();
+
+    private final AtomicReference<Version> directory = new AtomicReference<>(next());
+    private final AtomicReference<Version> availability = new AtomicReference<>(next());
+
+    // The doctor list and filters
+    public Version directory() {
+        return directory.get();
+    }
+
+    // Free slots, which depend on doctors and appointments alike
+    public Version availability() {
+        return availability.get();
+    }
+
+    public void doctorsChanged() {
+        directory.set(next());
+        availability.set(next());
+    }
+
+    public void appointmentsChanged() {
+        availability.set(next());
+    }
+
+    // Last-Modified has whole seconds; the ETag tells apart writes within the same second
+    private Version next() {
+        return new Version("\"" + boot + "-" + counter.incrementAndGet() + "\"",
+                Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+}
@@ -0,0 +1,148 @@
+package com.project.back_end.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import com.project.back_end.DTO.OpenSlot;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.TimeSlot;
+import com.project.back_end.repo.AppointmentRepository;
+
+// Merges the slot streams of a set of doctors into one time-ordered list of free slots, for
+// DoctorService.findEarliestSlots. The queue holds each doctor's next candidate slot; a candidate is
+// only checked against the appointments when it reaches the head, so appointments are read a window
+// of days at a time, for all the doctors at once, and only as far as the last slot returned.
+final class EarliestSlotSearch {
+
+    private final AppointmentRepository appointmentRepository;
+    private final List<Doctor> doctors;
+    private final LocalDateTime now;
+    // First day not searched
+    private final LocalDate horizon;
+    private final int windowDays;
+
+    // doctorId -> booked appointment starts, for the days before loadedUntil
+    private final Map<Long, Set<LocalDateTime>> booked = new HashMap<>();
+    private LocalDate loadedUntil;
+
+    EarliestSlotSearch(AppointmentRepository appointmentRepository, List<Doctor> doctors, LocalDateTime now,
+            int horizonDays, int windowDays) {
+        this.appointmentRepository = appointmentRepository;
+        this.doctors = doctors;
+        this.now = now;
+        this.horizon = now.toLocalDate().plusDays(horizonDays);
+        this.windowDays = windowDays;
+        this.loadedUntil = now.toLocalDate();
+    }
+
+    // dayParts is TimeSlot.MORNING and/or TimeSlot.AFTERNOON: the slots to consider, by start time
+    List<OpenSlot> first(int count, int dayParts) {
+        PriorityQueue<SlotStream> queue = new PriorityQueue<>(
+                Comparator.comparing((SlotStream stream) -> stream.candidate).thenComparing(stream -> stream.doctor.getId()));
+        for (Doctor doctor : doctors) {
+            SlotStream stream = new SlotStream(doctor, dayParts);
+            if (stream.advance()) {
+                queue.add(stream);
+            }
+        }
+        List<OpenSlot> slots = new ArrayList<>(count);
+        while (slots.size() < count && !queue.isEmpty()) {
+            SlotStream stream = queue.poll();
+            if (!isBooked(stream.doctor.getId(), stream.candidate, stream.slot())) {
+                slots.add(new OpenSlot(stream.doctor.getId(), stream.doctor.getName(), stream.doctor.getSpecialty(),
+                        stream.candidate, stream.label()));
+            }
+            if (stream.advance()) {
+                queue.add(stream);
+            }
+        }
+        return slots;
+    }
+
+    // Same rule as AvailabilityIndex: the slot is taken by a one-hour appointment at its start
+    private boolean isBooked(Long doctorId, LocalDateTime start, int slot) {
+        load(start.toLocalDate());
+        Set<LocalDateTime> times = booked.get(doctorId);
+        return times != null && times.contains(start) && TimeSlot.ofAppointment(start) == slot;
+    }
+
+    private void load(LocalDate day) {
+        while (!day.isBefore(loadedUntil)) {
+            LocalDate end = loadedUntil.plusDays(windowDays);
+            end = end.isAfter(horizon) ? horizon : end;
+            List<Object[]> rows = appointmentRepository.findDoctorIdsAndAppointmentTimes(doctorIds(),
+                    loadedUntil.atStartOfDay(), end.minusDays(1).atTime(LocalTime.MAX));
+            for (Object[] row : rows) {
+                booked.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((LocalDateTime) row[1]);
+            }
+            loadedUntil = end;
+        }
+    }
+
+    private Collection<Long> doctorIds() {
+        List<Long> ids = new ArrayList<>(doctors.size());
+        doctors.forEach(doctor -> ids.add(doctor.getId()));
+        return ids;
+    }
+
+    // One doctor's slots from now until the horizon, in time order
+    private final class SlotStream {
+
+        final Doctor doctor;
+        // Positions in availableTimes of the valid slots within dayParts, by start minute
+        final int[] order;
+        LocalDate day = now.toLocalDate();
+        int index = -1;
+        LocalDateTime candidate;
+
+        SlotStream(Doctor doctor, int dayParts) {
+            this.doctor = doctor;
+            int[] slots = doctor.getSlots();
+            List<Integer> positions = new ArrayList<>(slots.length);
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] != TimeSlot.INVALID && (TimeSlot.dayParts(new int[] { slots[i] }) & dayParts) != 0) {
+                    positions.add(i);
+                }
+            }
+            positions.sort(Comparator.comparingInt(i -> TimeSlot.startMinute(slots[i])));
+            this.order = positions.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // Moves to the next slot starting after now; false once the horizon is reached
+        boolean advance() {
+            if (order.length == 0) {
+                return false;
+            }
+            do {
+                if (++index == order.length) {
+                    index = 0;
+                    day = day.plusDays(1);
+                }
+                if (!day.isBefore(horizon)) {
+                    return false;
+                }
+                int start = TimeSlot.startMinute(slot());
+                candidate = day.atTime(start / 60, start % 60);
+            } while (!candidate.isAfter(now));
+            return true;
+        }
+
+        int slot() {
+            return doctor.getSlots()[order[index]];
+        }
+
+        String label() {
+            return doctor.getAvailableTimes().get(order[index]);
+        }
+    }
+}
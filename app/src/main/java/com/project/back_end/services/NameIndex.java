@@ -0,0 +1,104 @@
+package com.project.back_end.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Case-insensitive substring search over names through a trigram index. A query looks up the ids
+// of its rarest trigram and keeps those found under every other trigram and whose name contains
+// it, so the cost follows the number of candidates instead of the number of names. Queries
+// shorter than a trigram scan the names in memory. Writes are serialized, reads take no lock.
+public class NameIndex {
+
+    private static final int GRAM = 3;
+
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> idsByGram = new ConcurrentHashMap<>();
+
+    public synchronized void put(Long id, String name) {
+        remove(id);
+        if (name == null) {
+            return;
+        }
+        String key = normalize(name);
+        names.put(id, key);
+        for (String gram : grams(key)) {
+            idsByGram.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        String key = names.remove(id);
+        if (key == null) {
+            return;
+        }
+        for (String gram : grams(key)) {
+            Set<Long> ids = idsByGram.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    idsByGram.remove(gram);
+                }
+            }
+        }
+    }
+
+    // Ids whose name contains the query, ignoring case, like the LIKE '%query%' it replaces: spaces
+    // are part of the query, and an empty query matches every name
+    public Set<Long> search(String query) {
+        String key = normalize(query == null ? "" : query);
+        Set<Long> found = new HashSet<>();
+        if (key.length() < GRAM) {
+            names.forEach((id, name) -> {
+                if (name.contains(key)) {
+                    found.add(id);
+                }
+            });
+            return found;
+        }
+
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String gram : grams(key)) {
+            Set<Long> ids = idsByGram.get(gram);
+            if (ids == null) {
+                return found;
+            }
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> rarest = postings.get(0);
+        List<Set<Long>> others = postings.subList(1, postings.size());
+        for (Long id : rarest) {
+            if (others.stream().allMatch(ids -> ids.contains(id))) {
+                // Every trigram can occur in a name that doesn't contain the whole query, e.g. "abca" in "bcabc"
+                String name = names.get(id);
+                if (name != null && name.contains(key)) {
+                    found.add(id);
+                }
+            }
+        }
+        return found;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    private static Set<String> grams(String key) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            grams.add(key.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
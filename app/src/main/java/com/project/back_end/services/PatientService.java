@@ -1,34 +1,62 @@
 package com.project.back_end.services;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.DTO.AppointmentCursor;
 import com.project.back_end.DTO.AppointmentDTO;
-import com.project.back_end.models.Appointment;
 import com.project.back_end.models.Patient;
 import com.project.back_end.repo.AppointmentRepository;
 import com.project.back_end.repo.PatientRepository;
 
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
 
+@Timed("app.service")
 @Service
 public class PatientService {
 
+    private static final Logger log = LoggerFactory.getLogger(PatientService.class);
+
     private final PatientRepository patientRepository;
     private final AppointmentRepository appointmentRepository;
-    private final TokenService tokenService;
+    private final RequestPrincipal requestPrincipal;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final DoctorNameIndex doctorNameIndex;
+
+    // Largest page a client can ask for with ?limit=
+    private static final int MAX_PAGE_SIZE = 100;
 
     public PatientService(PatientRepository patientRepository, AppointmentRepository appointmentRepository,
-            TokenService tokenService) {
+            RequestPrincipal requestPrincipal, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+            DoctorNameIndex doctorNameIndex) {
         this.patientRepository = patientRepository;
         this.appointmentRepository = appointmentRepository;
-        this.tokenService = tokenService;
+        this.requestPrincipal = requestPrincipal;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.doctorNameIndex = doctorNameIndex;
     }
 
     public int createPatient(Patient patient) {
@@ -36,149 +64,153 @@ public class PatientService {
             patientRepository.save(patient);
             return 1;
         } catch (Exception e) {
-            System.out.println("Error: " + e);
+            log.error("Error saving patient", e);
             return 0;
         }
 
     }
 
-    @Transactional
-    public ResponseEntity<Map<String, Object>> getPatientAppointment(Long id, String token) {
+    // after/limit page through the history by keyset; without a limit the whole history is returned
+    @Transactional(readOnly = true)
+    public ResponseEntity<Map<String, Object>> getPatientAppointment(Long id, String token, AppointmentCursor after,
+            Integer limit) {
         Map<String, Object> map = new HashMap<>();
 
         try {
-            List<Appointment> appointments = appointmentRepository.findByPatientId(id);
-
-            // Convert appointments to DTOs
-            List<AppointmentDTO> appointmentDTOs = appointments.stream()
-                    .map(app -> new AppointmentDTO(
-                            app.getId(),
-                            app.getDoctor().getId(), // Only doctor ID
-                            app.getDoctor().getName(),
-                            app.getPatient().getId(),
-                            app.getPatient().getName(),
-                            app.getPatient().getEmail(),
-                            app.getPatient().getPhone(),
-                            app.getPatient().getAddress(),
-                            app.getAppointmentTime(),
-                            app.getStatus()))
-                    .collect(Collectors.toList());
-
-            map.put("appointments", appointmentDTOs);
-            return ResponseEntity.status(HttpStatus.OK).body(map);
+            List<AppointmentDTO> appointments = after == null ? appointmentRepository.findByPatientId(id, page(limit))
+                    : appointmentRepository.findByPatientIdAfter(id, after.appointmentTime(), after.id(), page(limit));
+            return ResponseEntity.status(HttpStatus.OK).body(result(appointments, limit));
         } catch (Exception e) {
-            System.out.println("Error: " + e);
+            log.error("Error fetching patient appointments", e);
             map.put("error", "Internal Server Error");
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(map);
         }
     }
 
-    public ResponseEntity<Map<String, Object>> filterByCondition(String condition, Long id) {
+    // Writes the whole history as newline-delimited JSON while it is read from MySQL,
+    // so the response never holds more than one row in memory
+    public void streamPatientAppointments(Long id, OutputStream out) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<AppointmentDTO> appointments = appointmentRepository.streamByPatientId(id)) {
+                Iterator<AppointmentDTO> iterator = appointments.iterator();
+                while (iterator.hasNext()) {
+                    out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public ResponseEntity<Map<String, Object>> filterByCondition(String condition, Long id, AppointmentCursor after,
+            Integer limit) {
         Map<String, Object> map = new HashMap<>();
-        List<Appointment> appointments;
+        int status;
         if (condition.equals("past")) {
-            appointments = appointmentRepository.findByPatient_IdAndStatusOrderByAppointmentTimeAsc(id, 1);
+            status = 1;
 
         } else if (condition.equals("future")) {
-            appointments = appointmentRepository.findByPatient_IdAndStatusOrderByAppointmentTimeAsc(id, 0);
+            status = 0;
 
         } else {
             map.put("error", "Invalid filter");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
 
         }
-        List<AppointmentDTO> appointmentDTOs = appointments.stream()
-                .map(app -> new AppointmentDTO(
-                        app.getId(),
-                        app.getDoctor().getId(), // Only doctor ID
-                        app.getDoctor().getName(),
-                        app.getPatient().getId(),
-                        app.getPatient().getName(),
-                        app.getPatient().getEmail(),
-                        app.getPatient().getPhone(),
-                        app.getPatient().getAddress(),
-                        app.getAppointmentTime(),
-                        app.getStatus()))
-                .collect(Collectors.toList());
-
-        map.put("appointments", appointmentDTOs);
-        return ResponseEntity.status(HttpStatus.OK).body(map);
+        List<AppointmentDTO> appointments = after == null
+                ? appointmentRepository.findByPatientIdAndStatus(id, status, page(limit))
+                : appointmentRepository.findByPatientIdAndStatusAfter(id, status, after.appointmentTime(), after.id(),
+                        page(limit));
+        return ResponseEntity.status(HttpStatus.OK).body(result(appointments, limit));
     }
 
-    public ResponseEntity<Map<String, Object>> filterByDoctor(String name, Long patientId) {
-        Map<String, Object> map = new HashMap<>();
-
-        System.out.println("Startingur query");
-        List<Appointment> appointments = appointmentRepository.filterByDoctorNameAndPatientId(name,
-                patientId);
-
-        System.out.println(name);
-        System.out.println(patientId);
-        System.out.println("HI");
-        System.out.println(appointments.size());
-        for (Appointment appointment : appointments) {
-            System.out.println("" + appointment.getDoctor().getName());
+    @Transactional(readOnly = true)
+    public ResponseEntity<Map<String, Object>> filterByDoctor(String name, Long patientId, AppointmentCursor after,
+            Integer limit) {
+        Set<Long> doctorIds = doctorNameIndex.search(name);
+        List<AppointmentDTO> appointments;
+        if (doctorIds.isEmpty()) {
+            appointments = new ArrayList<>();
+        } else if (doctorIds.size() > DoctorNameIndex.MAX_IDS_PER_QUERY) {
+            appointments = after == null
+                    ? appointmentRepository.filterByDoctorNameAndPatientId(name, patientId, page(limit))
+                    : appointmentRepository.filterByDoctorNameAndPatientIdAfter(name, patientId,
+                            after.appointmentTime(), after.id(), page(limit));
+        } else {
+            appointments = after == null
+                    ? appointmentRepository.filterByDoctorIdInAndPatientId(doctorIds, patientId, page(limit))
+                    : appointmentRepository.filterByDoctorIdInAndPatientIdAfter(doctorIds, patientId,
+                            after.appointmentTime(), after.id(), page(limit));
         }
+        log.debug("Doctor filter '{}' matched {} appointments of patient {}", name, appointments.size(), patientId);
 
-        List<AppointmentDTO> appointmentDTOs = appointments.stream()
-                .map(app -> new AppointmentDTO(
-                        app.getId(),
-                        app.getDoctor().getId(), // Only doctor ID
-                        app.getDoctor().getName(),
-                        app.getPatient().getId(),
-                        app.getPatient().getName(),
-                        app.getPatient().getEmail(),
-                        app.getPatient().getPhone(),
-                        app.getPatient().getAddress(),
-                        app.getAppointmentTime(),
-                        app.getStatus()))
-                .collect(Collectors.toList());
-
-        map.put("appointments", appointmentDTOs);
-        return ResponseEntity.status(HttpStatus.OK).body(map);
+        return ResponseEntity.status(HttpStatus.OK).body(result(appointments, limit));
     }
 
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String, Object>> filterByDoctorAndCondition(String condition, String name,
-            long patientId) {
+            long patientId, AppointmentCursor after, Integer limit) {
 
         Map<String, Object> map = new HashMap<>();
-        List<Appointment> appointments;
+        int status;
         if (condition.equals("past")) {
-            appointments = appointmentRepository.filterByDoctorNameAndPatientIdAndStatus(name, patientId, 1);
-
+            status = 1;
         } else if (condition.equals("future")) {
-            appointments = appointmentRepository.filterByDoctorNameAndPatientIdAndStatus(name, patientId, 0);
-
+            status = 0;
         } else {
             map.put("error", "Invalid filter");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map);
 
         }
-        List<AppointmentDTO> appointmentDTOs = appointments.stream()
-                .map(app -> new AppointmentDTO(
-                        app.getId(),
-                        app.getDoctor().getId(), // Only doctor ID
-                        app.getDoctor().getName(),
-                        app.getPatient().getId(),
-                        app.getPatient().getName(),
-                        app.getPatient().getEmail(),
-                        app.getPatient().getPhone(),
-                        app.getPatient().getAddress(),
-                        app.getAppointmentTime(),
-                        app.getStatus()))
-                .collect(Collectors.toList());
-
-        map.put("appointments", appointmentDTOs);
-        return ResponseEntity.status(HttpStatus.OK).body(map);
+        Set<Long> doctorIds = doctorNameIndex.search(name);
+        List<AppointmentDTO> appointments;
+        if (doctorIds.isEmpty()) {
+            appointments = new ArrayList<>();
+        } else if (doctorIds.size() > DoctorNameIndex.MAX_IDS_PER_QUERY) {
+            appointments = after == null
+                    ? appointmentRepository.filterByDoctorNameAndPatientIdAndStatus(name, patientId, status,
+                            page(limit))
+                    : appointmentRepository.filterByDoctorNameAndPatientIdAndStatusAfter(name, patientId, status,
+                            after.appointmentTime(), after.id(), page(limit));
+        } else {
+            appointments = after == null
+                    ? appointmentRepository.filterByDoctorIdInAndPatientIdAndStatus(doctorIds, patientId, status,
+                            page(limit))
+                    : appointmentRepository.filterByDoctorIdInAndPatientIdAndStatusAfter(doctorIds, patientId,
+                            status, after.appointmentTime(), after.id(), page(limit));
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(result(appointments, limit));
     }
 
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String,Object>> getPatientDetails(String token)
     {
         Map<String, Object> map = new HashMap<>();
-        String email=tokenService.extractEmail(token);
-        Patient patient=patientRepository.findByEmail(email);
+        Long id=requestPrincipal.resolve(token, "patient").id();
+        Patient patient=patientRepository.findById(id).orElse(null);
         map.put("patient",patient);
         return ResponseEntity.status(HttpStatus.OK).body(map);
     }
 
-}
\ No newline at end of file
+    private static Pageable page(Integer limit) {
+        return limit == null ? Pageable.unpaged() : PageRequest.of(0, pageSize(limit));
+    }
+
+    private static int pageSize(Integer limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    // A full page carries the cursor of its last row; a short page is the end of the list
+    private static Map<String, Object> result(List<AppointmentDTO> appointments, Integer limit) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("appointments", appointments);
+        if (limit != null && !appointments.isEmpty() && appointments.size() == pageSize(limit)) {
+            map.put("nextCursor", AppointmentCursor.after(appointments.get(appointments.size() - 1)).toString());
+        }
+        return map;
+    }
+
+}
@@ -1,9 +1,15 @@
 package com.project.back_end.services;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -11,8 +17,13 @@ import org.springframework.stereotype.Service;
 import com.project.back_end.models.Prescription;
 import com.project.back_end.repo.PrescriptionRepository;
 
+import io.micrometer.core.annotation.Timed;
+
+@Timed("app.service")
 @Service
 public class PrescriptionService {
+
+    private static final Logger log = LoggerFactory.getLogger(PrescriptionService.class);
     
     private final PrescriptionRepository prescriptionRepository;
 
@@ -25,20 +36,19 @@ public class PrescriptionService {
     {
         Map<String, String> map=new HashMap<>();
         try{
-            List<Prescription> result=prescriptionRepository.findByAppointmentId(prescription.getAppointmentId());
-            if(result.isEmpty())
-            {
-                prescriptionRepository.save(prescription);
-                map.put("message","Prescription saved");
-                return ResponseEntity.status(HttpStatus.CREATED).body(map); 
-            }
+            // One round trip: the unique index on appointmentId rejects a second prescription
+            prescriptionRepository.insert(prescription);
+            map.put("message","Prescription saved");
+            return ResponseEntity.status(HttpStatus.CREATED).body(map); 
+        }
+        catch(DuplicateKeyException e)
+        {
             map.put("message","prescription already exists");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(map); 
-            
         }
         catch(Exception e)
         {
-            System.out.println("Error: "+e);
+            log.error("Error saving prescription", e);
             map.put("message","Internal Server Error");
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(map); 
         }
@@ -55,9 +65,56 @@ public class PrescriptionService {
         }
         catch(Exception e)
         {
-            System.out.println("Error: "+e);
+            log.error("Error fetching prescription", e);
+            map.put("error","Internal Server Error");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(map); 
+        }
+    }
+
+    // The prescriptions of many appointments with one $in query, keyed by appointment id
+    public ResponseEntity<Map<String, Object>> getPrescriptions(Collection<Long> appointmentIds)
+    {
+        Map<String, Object> map=new HashMap<>();
+
+        try{
+            map.put("prescriptions",findByAppointmentIds(appointmentIds));
+            return ResponseEntity.status(HttpStatus.OK).body(map); 
+        }
+        catch(Exception e)
+        {
+            log.error("Error fetching prescriptions", e);
             map.put("error","Internal Server Error");
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(map); 
         }
     }
-}
\ No newline at end of file
+
+    public Map<Long, Prescription> findByAppointmentIds(Collection<Long> appointmentIds)
+    {
+        Map<Long, Prescription> prescriptions=new HashMap<>();
+        if(appointmentIds.isEmpty())
+        {
+            return prescriptions;
+        }
+        for(Prescription prescription:prescriptionRepository.findByAppointmentIdIn(appointmentIds))
+        {
+            prescriptions.put(prescription.getAppointmentId(),prescription);
+        }
+        return prescriptions;
+    }
+
+    // Which of the appointments have a prescription, with one $in query
+    public Set<Long> withPrescription(Collection<Long> appointmentIds)
+    {
+        Set<Long> result=new HashSet<>();
+        if(appointmentIds.isEmpty())
+        {
+            return result;
+        }
+        List<Prescription> found=prescriptionRepository.findAppointmentIdsByAppointmentIdIn(appointmentIds);
+        for(Prescription prescription:found)
+        {
+            result.add(prescription.getAppointmentId());
+        }
+        return result;
+    }
+}
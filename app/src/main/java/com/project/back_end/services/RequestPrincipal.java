@@ -0,0 +1,61 @@
+package com.project.back_end.services;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import com.project.back_end.DTO.AuthenticatedPrincipal;
+
+// The account behind the current request's token. Resolved once, by PrincipalInterceptor or by the
+// first validateToken call, and then read by the services instead of looking the account up again.
+@Component
+@RequestScope
+public class RequestPrincipal {
+
+    private static final String BEARER = "Bearer ";
+
+    private final TokenService tokenService;
+
+    private String token;
+    private AuthenticatedPrincipal principal;
+
+    public RequestPrincipal(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    // Null when the token is invalid or does not belong to an account with the given role
+    public AuthenticatedPrincipal resolve(String token, String role) {
+        if (principal != null && principal.role().equals(role) && token != null && token.equals(this.token)) {
+            return principal;
+        }
+        return remember(token, tokenService.resolve(token, role));
+    }
+
+    // Same, with the role taken from the token's own claim
+    public AuthenticatedPrincipal resolve(String token) {
+        if (principal != null && token != null && token.equals(this.token)) {
+            return principal;
+        }
+        return remember(token, tokenService.resolve(token));
+    }
+
+    public AuthenticatedPrincipal get() {
+        return principal;
+    }
+
+    // The token of an "Authorization: Bearer <token>" header, null when there is none
+    public static String bearerToken(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return null;
+        }
+        String token = authorization.substring(BEARER.length()).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    private AuthenticatedPrincipal remember(String token, AuthenticatedPrincipal resolved) {
+        if (resolved != null) {
+            this.token = token;
+            this.principal = resolved;
+        }
+        return resolved;
+    }
+}
@@ -1,47 +1,49 @@
 package com.project.back_end.services;
 
-import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import com.project.back_end.DTO.AppointmentCursor;
 import com.project.back_end.DTO.Login;
 import com.project.back_end.models.Admin;
 import com.project.back_end.models.Appointment;
-import com.project.back_end.models.Doctor;
 import com.project.back_end.models.Patient;
 import com.project.back_end.repo.AdminRepository;
-import com.project.back_end.repo.DoctorRepository;
 import com.project.back_end.repo.PatientRepository;
 
 @org.springframework.stereotype.Service
 public class Service {
 
+    private static final Logger log = LoggerFactory.getLogger(Service.class);
+
     private final TokenService tokenService;
     private final AdminRepository adminRepository;
-    private final DoctorRepository doctorRepository;
     private final DoctorService doctorService;
     private final PatientRepository patientRepository;
     private final PatientService patientService;
+    private final AvailabilityIndex availabilityIndex;
+    private final RequestPrincipal requestPrincipal;
 
     public Service(TokenService tokenService, AdminRepository adminRepository, DoctorService doctorService,
-            DoctorRepository doctorRepository, PatientRepository patientRepository,PatientService patientService) {
+            PatientRepository patientRepository,PatientService patientService,
+            AvailabilityIndex availabilityIndex, RequestPrincipal requestPrincipal) {
         this.tokenService = tokenService;
         this.adminRepository = adminRepository;
         this.doctorService = doctorService;
-        this.doctorRepository = doctorRepository;
         this.patientRepository = patientRepository;
         this.patientService=patientService;
+        this.availabilityIndex = availabilityIndex;
+        this.requestPrincipal = requestPrincipal;
     }
 
     public ResponseEntity<Map<String, String>> validateToken(String token, String user) {
         Map<String, String> response = new HashMap<>();
-        if (!tokenService.validateToken(token, user)) {
+        if (requestPrincipal.resolve(token, user) == null) {
             response.put("error", "Invalid or expired token");
         }
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
@@ -53,7 +55,7 @@ public class Service {
             Admin admin = adminRepository.findByUsername(receivedAdmin.getUsername());
             if (admin != null) {
                 if (admin.getPassword().equals(receivedAdmin.getPassword())) {
-                    map.put("token", tokenService.generateToken(admin.getUsername()));
+                    map.put("token", tokenService.generateToken(admin.getUsername(), "admin", admin.getId()));
                     return ResponseEntity.status(HttpStatus.OK).body(map);
                 } else {
                     map.put("error", "Password does not match");
@@ -64,7 +66,7 @@ public class Service {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(map);
 
         } catch (Exception e) {
-            System.out.println("Error: " + e);
+            log.error("Error validating admin login", e);
             map.put("error", "Internal Server error");
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(map);
         }
@@ -72,6 +74,7 @@ public class Service {
 
     public Map<String, Object> filterDoctor(String name, String specility, String time) {
         Map<String, Object> map = new HashMap<>();
+
         if (!name.equals("null") && !time.equals("null") && !specility.equals("null")) {
             map = doctorService.filterDoctorsByNameSpecilityandTime(name, specility, time);
         }
@@ -89,6 +92,7 @@ public class Service {
         } else if (!time.equals("null")) {
             map = doctorService.filterDoctorsByTime(time);
         } else {
+            // Only the unfiltered directory is served from the cache
             map.put("doctors", doctorService.getDoctors());
         }
         return map;
@@ -96,30 +100,12 @@ public class Service {
     }
 
     public int validateAppointment(Appointment appointment) {
-        Doctor doctor = appointment.getDoctor();
-        Optional<Doctor> result = doctorRepository.findById(doctor.getId());
-        if (result.isEmpty()) {
+        Long doctorId = appointment.getDoctor().getId();
+        if (!availabilityIndex.hasDoctor(doctorId)) {
             return -1;
         }
-        LocalDate appointmentDate = appointment.getAppointmentDate();
-        LocalTime appointmentTime = appointment.getAppointmentTimeOnly();
-        List<String> availableTime = doctorService.getDoctorAvailability(doctor.getId(), appointmentDate);
-
-        for (String timeSlot : availableTime) {
-            // Split the available time slot into start and end times (e.g., "9:00-10:00" ->
-            // ["9:00", "10:00"])
-            String[] times = timeSlot.split("-");
-
-            // Parse the start time and end time as LocalTime
-            LocalTime startTime = LocalTime.parse(times[0]);
-
-            if (appointmentTime.equals(startTime)) {
-                return 1; // The appointment time matches the start time of an available slot
-            }
-
-        }
-
-        return 0;
+        // 1 when the appointment time matches the start time of a free slot
+        return availabilityIndex.isFree(doctorId, appointment.getAppointmentTime()) ? 1 : 0;
     }
 
     public boolean validatePatient(Patient patient) {
@@ -136,7 +122,7 @@ public class Service {
             Patient result = patientRepository.findByEmail(login.getEmail());
             if (result != null) {
                 if (result.getPassword().equals(login.getPassword())) {
-                    map.put("token", tokenService.generateToken(login.getEmail()));
+                    map.put("token", tokenService.generateToken(login.getEmail(), "patient", result.getId()));
                     return ResponseEntity.status(HttpStatus.OK).body(map);
                 }
 
@@ -151,32 +137,32 @@ public class Service {
         }
 
         catch (Exception e) {
-            System.out.println("Error: " + e);
+            log.error("Error validating patient login", e);
             map.put("error", "Internal Server error");
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(map);
         }
     }
 
-    public ResponseEntity<Map<String,Object>> filterPatient(String condition,String name,String token)
+    public ResponseEntity<Map<String,Object>> filterPatient(String condition,String name,String token,
+            AppointmentCursor after,Integer limit)
     {
-        String extractedEmail = tokenService.extractEmail(token);
-        Long patientId = patientRepository.findByEmail(extractedEmail).getId();
+        Long patientId = requestPrincipal.resolve(token, "patient").id();
 
         if(name.equals("null") && !condition.equals("null"))
         {
-            return patientService.filterByCondition(condition,patientId);
+            return patientService.filterByCondition(condition,patientId,after,limit);
         }
         else if(condition.equals("null")&& !name.equals("null"))
         {
-            return patientService.filterByDoctor(name,patientId);
+            return patientService.filterByDoctor(name,patientId,after,limit);
         }
         else if(!condition.equals("null")&& !name.equals("null"))
         {
-            return patientService.filterByDoctorAndCondition(condition,name,patientId);
+            return patientService.filterByDoctorAndCondition(condition,name,patientId,after,limit);
         }
         else
         {
-            return patientService.getPatientAppointment(patientId,token);
+            return patientService.getPatientAppointment(patientId,token,after,limit);
         }
         
 
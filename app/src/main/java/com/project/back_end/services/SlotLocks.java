@@ -0,0 +1,67 @@
+package com.project.back_end.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.stereotype.Component;
+
+import com.project.back_end.models.Appointment;
+
+// Striped locks keyed by doctor and day. Bookings for the same doctor-day are serialized so the
+// availability check and the insert happen as one step; different doctors almost always land on
+// different stripes and book in parallel. The unique constraint on (doctor_id, appointment_time)
+// still guards against writers outside this process.
+@Component
+public class SlotLocks {
+
+    // Power of two so the stripe is a mask of the hash
+    private static final int STRIPES = 256;
+
+    private final Lock[] locks = new Lock[STRIPES];
+
+    public SlotLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock lockFor(Long doctorId, LocalDate day) {
+        return locks[stripe(doctorId, day)];
+    }
+
+    // Locks every stripe the appointments' doctor-days fall on. Stripes are taken in ascending order
+    // so two batches can never deadlock; release with unlockAll.
+    public List<Lock> lockAll(List<Appointment> appointments) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (Appointment appointment : appointments) {
+            stripes.add(stripe(appointment.getDoctor().getId(), appointment.getAppointmentTime().toLocalDate()));
+        }
+        List<Lock> held = new ArrayList<>(stripes.size());
+        try {
+            for (int stripe : stripes) {
+                locks[stripe].lock();
+                held.add(locks[stripe]);
+            }
+        } catch (RuntimeException e) {
+            unlockAll(held);
+            throw e;
+        }
+        return held;
+    }
+
+    public void unlockAll(List<Lock> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            held.get(i).unlock();
+        }
+    }
+
+    int stripe(Long doctorId, LocalDate day) {
+        int hash = 31 * Long.hashCode(doctorId) + day.hashCode();
+        hash ^= hash >>> 16;
+        return hash & (STRIPES - 1);
+    }
+}
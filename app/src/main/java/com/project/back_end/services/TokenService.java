@@ -1,12 +1,20 @@
 package com.project.back_end.services;
 
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.crypto.SecretKey;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.project.back_end.DTO.AuthenticatedPrincipal;
 import com.project.back_end.models.Admin;
 import com.project.back_end.models.Doctor;
 import com.project.back_end.models.Patient;
@@ -14,80 +22,204 @@ import com.project.back_end.repo.AdminRepository;
 import com.project.back_end.repo.DoctorRepository;
 import com.project.back_end.repo.PatientRepository;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.annotation.Timed;
 
+@Timed("app.service")
 @Component
 public class TokenService {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    // Tokens kept verified in memory; an entry also leaves the cache when its token expires
+    private static final int MAX_CACHED_TOKENS = 10_000;
+
+    // Patients and admins are only ever deleted in the database, where no evictPrincipal call sees
+    // it, so a cached token is verified and its accounts looked up again at least this often
+    private static final long RECHECK_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final String ROLE_CLAIM = "role";
+    private static final String ID_CLAIM = "id";
 
     private final AdminRepository adminRepository;
     private final DoctorRepository doctorRepository;
     private final PatientRepository patientRepository;
-    public TokenService(AdminRepository adminRepository,DoctorRepository doctorRepository,PatientRepository patientRepository) {
+
+    // Built once, both are immutable and thread-safe
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    // Bumped by evictPrincipal before it removes anything. A lookup only caches its principal if no
+    // eviction started meanwhile, as it may have read an account that is being deleted.
+    private final AtomicLong evictions = new AtomicLong();
+
+    // A token whose signature and expiry were checked, with the accounts it was resolved to per role
+    // (role and id are the token's own claims, null for tokens issued before they were added)
+    private record VerifiedToken(String email, String role, Long id, long expiresAtMillis,
+            Map<String, AuthenticatedPrincipal> principals) {
+
+        VerifiedToken with(AuthenticatedPrincipal principal) {
+            Map<String, AuthenticatedPrincipal> next = new HashMap<>(principals);
+            next.put(principal.role(), principal);
+            return new VerifiedToken(email, role, id, expiresAtMillis, Map.copyOf(next));
+        }
+
+        boolean resolvesTo(String role, Long id) {
+            AuthenticatedPrincipal principal = principals.get(role);
+            return principal != null && principal.id() != null && principal.id().equals(id);
+        }
+    }
+
+    public TokenService(@Value("${jwt.secret}") String secret, AdminRepository adminRepository,
+            DoctorRepository doctorRepository, PatientRepository patientRepository) {
         this.adminRepository=adminRepository;
         this.doctorRepository = doctorRepository;
         this.patientRepository=patientRepository;
-    }
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_TOKENS)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+                        long remainingMillis = verified.expiresAtMillis() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, Math.min(remainingMillis, RECHECK_MILLIS)));
+                    }
 
-    // Return type changed to SecretKey to fix verifyWith(...) issue
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken verified, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
-    public String generateToken(String email) {
+    // The role and account id travel as claims so a request can be tied to its account by primary key
+    public String generateToken(String email, String role, Long id) {
         return Jwts.builder()
                 .subject(email)
+                .claim(ROLE_CLAIM, role)
+                .claim(ID_CLAIM, id)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + 1000L * 60 * 60 * 24 * 7))
-                .signWith(getSigningKey()) // clean & modern
+                .signWith(signingKey) // clean & modern
                 .compact();
-    }    
+    }
 
     public String extractEmail(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey()) // No more error now
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        return verify(token).email();
     }
 
     public boolean validateToken(String token,String user) {
+        return resolve(token, user) != null;
+    }
+
+    // The account the token belongs to for the given role, or null if the token is invalid or
+    // no such account exists. Repeated calls with the same token do no crypto and no SQL.
+    public AuthenticatedPrincipal resolve(String token, String user) {
         try {
-            String extracted = extractEmail(token);
-            if(user.equals("admin"))
+            VerifiedToken verified = verify(token);
+            AuthenticatedPrincipal principal = verified.principals().get(user);
+            if (principal != null) {
+                return principal;
+            }
+            long generation = evictions.get();
+            principal = lookup(user, verified);
+            if (principal != null) {
+                AuthenticatedPrincipal found = principal;
+                verifiedTokens.asMap().computeIfPresent(token,
+                        (key, current) -> evictions.get() == generation ? current.with(found) : current);
+            }
+            return principal;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Same, for the role named in the token's claim; null for tokens without one
+    public AuthenticatedPrincipal resolve(String token) {
+        try {
+            String role = verify(token).role();
+            return role == null ? null : resolve(token, role);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Forgets every cached token resolved to the account, e.g. after the account is deleted
+    public void evictPrincipal(String user, Long id) {
+        evictions.incrementAndGet();
+        verifiedTokens.asMap().values().removeIf(verified -> verified.resolvesTo(user, id));
+    }
+
+    private VerifiedToken verify(String token) {
+        VerifiedToken verified = verifiedTokens.getIfPresent(token);
+        if (verified != null) {
+            return verified;
+        }
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Date expiration = claims.getExpiration();
+        Number id = claims.get(ID_CLAIM, Number.class);
+        verified = new VerifiedToken(claims.getSubject(), claims.get(ROLE_CLAIM, String.class),
+                id == null ? null : id.longValue(), expiration == null ? Long.MAX_VALUE : expiration.getTime(), Map.of());
+        VerifiedToken existing = verifiedTokens.asMap().putIfAbsent(token, verified);
+        return existing != null ? existing : verified;
+    }
+
+    private AuthenticatedPrincipal lookup(String user, VerifiedToken verified) {
+        String email = verified.email();
+        if (verified.id() != null && user.equals(verified.role())) {
+            // The claimed id only needs an existence check by primary key
+            return exists(user, verified.id()) ? new AuthenticatedPrincipal(user, verified.id(), email) : null;
+        }
+        if(user.equals("admin"))
+        {
+            Admin admin =adminRepository.findByUsername(email);
+            if(admin!=null)
             {
-                Admin admin =adminRepository.findByUsername(extracted);
-                if(admin!=null)
-                {
-                    return true;
-                }
+                return new AuthenticatedPrincipal(user, admin.getId(), email);
             }
-            else if(user.equals("doctor"))
+        }
+        else if(user.equals("doctor"))
+        {
+            Doctor doctor=doctorRepository.findByEmail(email);
+            if(doctor!=null)
             {
-                Doctor doctor=doctorRepository.findByEmail(extracted);
-                if(doctor!=null)
-                {
-                    return true;
-                }
+                return new AuthenticatedPrincipal(user, doctor.getId(), email);
             }
-            else if(user.equals("patient"))
+        }
+        else if(user.equals("patient"))
+        {
+            Patient patient=patientRepository.findByEmail(email);
+            if(patient!=null)
             {
-                Patient patient=patientRepository.findByEmail(extracted);
-                if(patient!=null)
-                {
-                    return true;
-                }
+                return new AuthenticatedPrincipal(user, patient.getId(), email);
             }
+        }
+        return null;
+    }
 
-            return false;
-        } catch (Exception e) {
-            return false;
+    private boolean exists(String user, Long id) {
+        switch (user) {
+            case "admin":
+                return adminRepository.existsById(id);
+            case "doctor":
+                return doctorRepository.existsById(id);
+            case "patient":
+                return patientRepository.existsById(id);
+            default:
+                return false;
         }
     }
 
-   
-}
\ No newline at end of file
+}
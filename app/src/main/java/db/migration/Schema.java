@@ -0,0 +1,36 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Lookups in information_schema for the Java migrations. Databases that ran with
+// spring.jpa.hibernate.ddl-auto=update after the baseline may already have some of what a migration
+// adds, so the migrations only add what is missing.
+final class Schema {
+
+    private Schema() {
+    }
+
+    static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        return exists(connection, "SELECT 1 FROM information_schema.columns"
+                + " WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?", table, column);
+    }
+
+    static boolean hasIndex(Connection connection, String table, String index) throws SQLException {
+        return exists(connection, "SELECT 1 FROM information_schema.statistics"
+                + " WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?", table, index);
+    }
+
+    private static boolean exists(Connection connection, String sql, String... args) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) {
+                statement.setString(i + 1, args[i]);
+            }
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next();
+            }
+        }
+    }
+}
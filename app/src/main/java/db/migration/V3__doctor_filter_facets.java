@@ -0,0 +1,38 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+// The facet columns behind the indexed doctor filters (Doctor.specialtyKey, hasMorningSlots,
+// hasAfternoonSlots) and their indexes. Existing rows get a null specialty_key and no day part;
+// DoctorService.backfillFacets fills them in from specialty and the slots when the app starts.
+public class V3__doctor_filter_facets extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            if (!Schema.hasColumn(connection, "doctor", "specialty_key")) {
+                statement.execute("ALTER TABLE doctor ADD COLUMN specialty_key VARCHAR(50)");
+            }
+            if (!Schema.hasColumn(connection, "doctor", "has_morning_slots")) {
+                statement.execute("ALTER TABLE doctor ADD COLUMN has_morning_slots BIT NOT NULL DEFAULT 0");
+            }
+            if (!Schema.hasColumn(connection, "doctor", "has_afternoon_slots")) {
+                statement.execute("ALTER TABLE doctor ADD COLUMN has_afternoon_slots BIT NOT NULL DEFAULT 0");
+            }
+            // Recomputed by the backfill, whatever an earlier ddl-auto=update left in them
+            statement.execute("UPDATE doctor SET specialty_key = NULL");
+            if (!Schema.hasIndex(connection, "doctor", "idx_doctor_specialty_morning")) {
+                statement.execute("CREATE INDEX idx_doctor_specialty_morning ON doctor (specialty_key, has_morning_slots)");
+            }
+            if (!Schema.hasIndex(connection, "doctor", "idx_doctor_specialty_afternoon")) {
+                statement.execute(
+                        "CREATE INDEX idx_doctor_specialty_afternoon ON doctor (specialty_key, has_afternoon_slots)");
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+// One appointment per doctor and start time, the guarantee booking relies on across instances.
+// Double bookings made before it existed can't be resolved here: the migration stops and lists them,
+// and they have to be rescheduled or cancelled by hand before it is run again.
+public class V4__appointment_doctor_time_unique extends BaseJavaMigration {
+
+    // Most duplicates listed in the failure message
+    private static final int REPORTED = 20;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (Schema.hasIndex(connection, "appointment", "uk_appointment_doctor_time")) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            List<String> duplicates = new ArrayList<>();
+            try (ResultSet result = statement.executeQuery("SELECT doctor_id, appointment_time, COUNT(*) FROM appointment"
+                    + " WHERE appointment_time IS NOT NULL GROUP BY doctor_id, appointment_time HAVING COUNT(*) > 1"
+                    + " LIMIT " + REPORTED)) {
+                while (result.next()) {
+                    duplicates.add("doctor " + result.getLong(1) + " at " + result.getTimestamp(2) + " ("
+                            + result.getInt(3) + " appointments)");
+                }
+            }
+            if (!duplicates.isEmpty()) {
+                throw new IllegalStateException("Double-booked slots must be resolved before adding "
+                        + "uk_appointment_doctor_time: " + String.join(", ", duplicates));
+            }
+            statement.execute("ALTER TABLE appointment"
+                    + " ADD CONSTRAINT uk_appointment_doctor_time UNIQUE (doctor_id, appointment_time)");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+-- The schema as spring.jpa.hibernate.ddl-auto=update created it before Flyway took over, and nothing
+-- later. A database that already has these tables is baselined at version 1
+-- (spring.flyway.baseline-on-migrate) and skips this script, so every later change goes in V2 onwards.
+
+CREATE TABLE admin (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    password VARCHAR(255) NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE doctor (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    email VARCHAR(255) NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    phone VARCHAR(255) NOT NULL,
+    specialty VARCHAR(50) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE doctor_available_times (
+    doctor_id BIGINT NOT NULL,
+    available_times VARCHAR(255),
+    CONSTRAINT fk_doctor_available_times_doctor FOREIGN KEY (doctor_id) REFERENCES doctor (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE patient (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    address VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    phone VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE appointment (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    appointment_time DATETIME(6),
+    status INTEGER NOT NULL,
+    doctor_id BIGINT NOT NULL,
+    patient_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_appointment_doctor FOREIGN KEY (doctor_id) REFERENCES doctor (id),
+    CONSTRAINT fk_appointment_patient FOREIGN KEY (patient_id) REFERENCES patient (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,13 @@
+-- Indexes for how the tables are actually read. The doctor's day view, (doctor_id, appointment_time),
+-- is served by uk_appointment_doctor_time (V4).
+
+-- Patient history in (appointment_time, id) keyset order, and its past/future filters by status
+CREATE INDEX idx_appointment_patient_time ON appointment (patient_id, appointment_time);
+CREATE INDEX idx_appointment_patient_status_time ON appointment (patient_id, status, appointment_time);
+
+-- Probed on every login and registration; fails if the table already holds duplicates, which
+-- have to be merged by hand first
+CREATE UNIQUE INDEX uk_doctor_email ON doctor (email);
+CREATE UNIQUE INDEX uk_patient_email ON patient (email);
+CREATE INDEX idx_patient_phone ON patient (phone);
+CREATE UNIQUE INDEX uk_admin_username ON admin (username);
@@ -1,13 +1,17 @@
 // patientRows.js
-export function createPatientRow(patient, appointmentId, doctorId) {
+// hasPrescription switches the action from adding a prescription to editing the existing one
+export function createPatientRow(patient, appointmentId, doctorId, hasPrescription) {
   const tr = document.createElement("tr");
   console.log("CreatePatientRow :: ", doctorId)
+  const prescriptionIcon = hasPrescription
+    ? `<img src="../assets/images/edit/edit.png" alt="editPrescriptionIcon" title="Edit prescription" class="prescription-btn" data-id="${patient.id}"></img>`
+    : `<img src="../assets/images/addPrescriptionIcon/addPrescription.png" alt="addPrescriptionIcon" title="Add prescription" class="prescription-btn" data-id="${patient.id}"></img>`;
   tr.innerHTML = `
       <td class="patient-id">${patient.id}</td>
       <td>${patient.name}</td>
       <td>${patient.phone}</td>
       <td>${patient.email}</td>
-      <td><img src="../assets/images/addPrescriptionIcon/addPrescription.png" alt="addPrescriptionIcon" class="prescription-btn" data-id="${patient.id}"></img></td>
+      <td>${prescriptionIcon}</td>
     `;
 
   // Attach event listeners
@@ -47,7 +47,7 @@ async function loadAppointments() {
         email: appointment.patientEmail,
       };
       console.log(appointment.doctorId)
-      const row = createPatientRow(patient,appointment.id,appointment.doctorId);
+      const row = createPatientRow(patient,appointment.id,appointment.doctorId,appointment.hasPrescription);
       tableBody.appendChild(row);
     });
   } catch (error) {
@@ -4,8 +4,9 @@ const APPOINTMENT_API = `${API_BASE_URL}/appointments`;
 
 
 //This is for the doctor to get all the patient Appointments
+//Each appointment comes with hasPrescription, found for the whole day with one batch lookup
 export async function getAllAppointments(date, patientName, token) {
-  const response = await fetch(`${APPOINTMENT_API}/${date}/${patientName}/${token}`);
+  const response = await fetch(`${APPOINTMENT_API}/${date}/${patientName}/${token}?withPrescriptionFlag=true`);
   if (!response.ok) {
     throw new Error("Failed to fetch appointments");
   }
@@ -0,0 +1,54 @@
+package com.project.back_end.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+class CorrelationIdFilterTests {
+
+    private final CorrelationIdFilter filter = new CorrelationIdFilter();
+
+    @Test
+    void callerIdIsLoggedAndEchoed() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(CorrelationIdFilter.HEADER, "checkout-42");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(correlationIdDuring(request, response)).isEqualTo("checkout-42");
+        assertThat(response.getHeader(CorrelationIdFilter.HEADER)).isEqualTo("checkout-42");
+        assertThat(MDC.get(CorrelationIdFilter.MDC_KEY)).isNull();
+    }
+
+    @Test
+    void malformedIdIsReplaced() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(CorrelationIdFilter.HEADER, "bad id\r\nX-Injected: 1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        String correlationId = correlationIdDuring(request, response);
+
+        assertThat(correlationId).hasSize(36).isEqualTo(response.getHeader(CorrelationIdFilter.HEADER));
+    }
+
+    private String correlationIdDuring(MockHttpServletRequest request, MockHttpServletResponse response)
+            throws Exception {
+        AtomicReference<String> seen = new AtomicReference<>();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                seen.set(MDC.get(CorrelationIdFilter.MDC_KEY));
+            }
+        }));
+        return seen.get();
+    }
+}
@@ -0,0 +1,34 @@
+package com.project.back_end.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+// Fails a test annotated with @QueryBudget when its body, @BeforeEach excluded, issues more SQL
+// statements or Mongo commands on the test thread than the budget allows
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        if (budget(context) != null) {
+            QueryCounter.start();
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryBudget budget = budget(context);
+        if (budget == null) {
+            return;
+        }
+        QueryCounter.Counts counts = QueryCounter.stop();
+        assertThat(counts.sqlStatements()).as("SQL statements").isLessThanOrEqualTo(budget.sql());
+        assertThat(counts.mongoCommands()).as("Mongo commands").isLessThanOrEqualTo(budget.mongo());
+    }
+
+    private static QueryBudget budget(ExtensionContext context) {
+        return context.getRequiredTestMethod().getAnnotation(QueryBudget.class);
+    }
+}
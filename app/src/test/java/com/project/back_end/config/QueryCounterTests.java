@@ -0,0 +1,92 @@
+package com.project.back_end.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class QueryCounterTests {
+
+    @AfterEach
+    void tearDown() {
+        while (QueryCounter.stop() != null) {
+            // unwind whatever a test left started on this thread
+        }
+    }
+
+    @Test
+    void innerCountsAddUpInTheOuterOne() {
+        QueryCounter.start();
+        QueryCounter.sqlStatement();
+        QueryCounter.start();
+        QueryCounter.sqlStatement();
+        QueryCounter.mongoCommand();
+
+        QueryCounter.Counts inner = QueryCounter.stop();
+        QueryCounter.Counts outer = QueryCounter.stop();
+
+        assertThat(inner.sqlStatements()).isEqualTo(1);
+        assertThat(inner.mongoCommands()).isEqualTo(1);
+        assertThat(outer.sqlStatements()).isEqualTo(2);
+        assertThat(outer.mongoCommands()).isEqualTo(1);
+        assertThat(QueryCounter.stop()).isNull();
+    }
+
+    @Test
+    void statementOverTheLimitFails() {
+        QueryCounter.start(2);
+        QueryCounter.sqlStatement();
+        QueryCounter.sqlStatement();
+
+        assertThatThrownBy(QueryCounter::sqlStatement).isInstanceOf(QueryBudgetExceededException.class)
+                .hasMessageContaining("budget of 2");
+    }
+
+    @Test
+    void executorTaskCountsTowardsTheSubmittingCall() throws InterruptedException {
+        QueryCounter.start();
+        Runnable task = QueryCounter.propagate(() -> {
+            QueryCounter.sqlStatement();
+            QueryCounter.mongoCommand();
+        });
+        runOnAnotherThread(task);
+
+        QueryCounter.Counts counts = QueryCounter.stop();
+
+        assertThat(counts.sqlStatements()).isEqualTo(1);
+        assertThat(counts.mongoCommands()).isEqualTo(1);
+    }
+
+    @Test
+    void taskOutlivingItsCallIsNotCounted() throws InterruptedException {
+        QueryCounter.start(1);
+        Runnable task = QueryCounter.propagate(() -> {
+            QueryCounter.sqlStatement();
+            QueryCounter.sqlStatement();
+        });
+        QueryCounter.Counts counts = QueryCounter.stop();
+
+        // Neither counted nor failed against the budget of the finished call
+        runOnAnotherThread(task);
+
+        assertThat(counts.sqlStatements()).isZero();
+    }
+
+    @Test
+    void nothingIsCountedOutsideARequest() {
+        QueryCounter.sqlStatement();
+        QueryCounter.mongoCommand();
+
+        assertThat(QueryCounter.stop()).isNull();
+    }
+
+    private static void runOnAnotherThread(Runnable task) throws InterruptedException {
+        Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(task);
+        thread.setUncaughtExceptionHandler((t, e) -> failure[0] = e);
+        thread.start();
+        thread.join();
+        assertThat(failure[0]).isNull();
+    }
+}
@@ -0,0 +1,61 @@
+package com.project.back_end.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+// The pools are never asked for a connection, so nothing here needs a database
+class RoutingDataSourceTests {
+
+    private final RoutingDataSource routing = new RoutingDataSource(new HikariDataSource(),
+            List.of(new HikariDataSource(), new HikariDataSource()));
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        RoutingDataSource.restoreReplicaReads(false);
+        routing.destroy();
+    }
+
+    @Test
+    void serviceReadsAlternateBetweenReplicas() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        RoutingDataSource.startReplicaReads();
+
+        assertThat(List.of(routing.determineCurrentLookupKey(), routing.determineCurrentLookupKey(),
+                routing.determineCurrentLookupKey())).containsExactly(0, 1, 0);
+    }
+
+    @Test
+    void readOnlyRepositoryCallsStayOnThePrimary() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo("primary");
+    }
+
+    @Test
+    void readOnlyServiceCallInsideAWriteStaysOnThePrimary() {
+        RoutingDataSource.startReplicaReads();
+
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo("primary");
+    }
+
+    @Test
+    void nestedServiceReadsKeepTheOuterMarker() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        boolean outer = RoutingDataSource.startReplicaReads();
+        boolean inner = RoutingDataSource.startReplicaReads();
+        RoutingDataSource.restoreReplicaReads(inner);
+
+        assertThat(routing.determineCurrentLookupKey()).isNotEqualTo("primary");
+
+        RoutingDataSource.restoreReplicaReads(outer);
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo("primary");
+    }
+}
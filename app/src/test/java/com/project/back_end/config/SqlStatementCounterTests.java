@@ -0,0 +1,73 @@
+package com.project.back_end.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+// Statements are counted on the DataSource, so JdbcTemplate's count like Hibernate's
+class SqlStatementCounterTests {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DataSource h2 = new DriverManagerDataSource("jdbc:h2:mem:counter;DB_CLOSE_DELAY=-1", "sa", "");
+        DataSource counted = (DataSource) new SqlStatementCounter().postProcessAfterInitialization(h2, "dataSource");
+        jdbcTemplate = new JdbcTemplate(counted);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS slot (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("DELETE FROM slot");
+    }
+
+    @AfterEach
+    void tearDown() {
+        while (QueryCounter.stop() != null) {
+            // unwind whatever a test left started on this thread
+        }
+    }
+
+    @Test
+    void batchCountsOnceAndRowByRowCountsEveryRow() {
+        List<Object[]> rows = List.of(new Object[] { 1L }, new Object[] { 2L }, new Object[] { 3L });
+
+        QueryCounter.start();
+        jdbcTemplate.batchUpdate("INSERT INTO slot (id) VALUES (?)", rows);
+        QueryCounter.Counts batch = QueryCounter.stop();
+
+        QueryCounter.start();
+        for (long id = 4; id <= 6; id++) {
+            jdbcTemplate.update("INSERT INTO slot (id) VALUES (?)", id);
+        }
+        jdbcTemplate.queryForObject("SELECT COUNT(*) FROM slot", Long.class);
+        QueryCounter.Counts rowByRow = QueryCounter.stop();
+
+        assertThat(batch.sqlStatements()).isEqualTo(1);
+        assertThat(rowByRow.sqlStatements()).isEqualTo(4);
+    }
+
+    @Test
+    void statementOverTheBudgetDoesNotRun() {
+        QueryCounter.start(0);
+
+        assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO slot (id) VALUES (?)", 1L))
+                .isInstanceOf(QueryBudgetExceededException.class);
+        QueryCounter.stop();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM slot", Long.class)).isZero();
+    }
+
+    @Test
+    void onlyTheApplicationDataSourceIsWrapped() {
+        DataSource pool = new DriverManagerDataSource("jdbc:h2:mem:counter", "sa", "");
+
+        assertThat(new SqlStatementCounter().postProcessAfterInitialization(pool, "primaryDataSource")).isSameAs(pool);
+    }
+}
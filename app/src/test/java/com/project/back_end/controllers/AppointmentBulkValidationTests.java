@@ -0,0 +1,97 @@
+package com.project.back_end.controllers;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.project.back_end.DTO.AuthenticatedPrincipal;
+import com.project.back_end.repo.AppointmentBatchRepository;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.services.AppointmentService;
+import com.project.back_end.services.AvailabilityIndex;
+import com.project.back_end.services.PrescriptionService;
+import com.project.back_end.services.RequestPrincipal;
+import com.project.back_end.services.Service;
+import com.project.back_end.services.SlotLocks;
+
+// Bean validation runs when the request is bound (standalone MockMvc has a validator), so an item it
+// rejected would fail the whole batch; the bulk endpoints must answer each item on its own
+class AppointmentBulkValidationTests {
+
+    private static final long PATIENT = 100L;
+
+    private Service service;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        service = mock(Service.class);
+        when(service.validateToken("token", "patient"))
+                .thenReturn(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new HashMap<>()));
+        when(service.validateAppointment(any())).thenReturn(1);
+        RequestPrincipal requestPrincipal = mock(RequestPrincipal.class);
+        when(requestPrincipal.resolve("token", "patient"))
+                .thenReturn(new AuthenticatedPrincipal("patient", PATIENT, "patient@example.com"));
+        AppointmentBatchRepository appointmentBatchRepository = mock(AppointmentBatchRepository.class);
+        when(appointmentBatchRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            int[] written = new int[((List<?>) invocation.getArgument(0)).size()];
+            Arrays.fill(written, 1);
+            return written;
+        });
+        AppointmentService appointmentService = new AppointmentService(mock(AppointmentRepository.class),
+                appointmentBatchRepository, service, requestPrincipal, mock(AvailabilityIndex.class), new SlotLocks(),
+                mock(PrescriptionService.class), Runnable::run, new MockEnvironment());
+        mockMvc = MockMvcBuilders.standaloneSetup(new AppointmentController(appointmentService, service)).build();
+    }
+
+    @Test
+    void pastItemIsRejectedOnItsOwn() throws Exception {
+        String body = "[" + item(LocalDateTime.now().minusDays(1)) + ","
+                + item(LocalDate.now().plusDays(1).atTime(9, 0)) + "]";
+
+        mockMvc.perform(post("/appointments/bulk/token").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].status").value(400))
+                .andExpect(jsonPath("$.results[0].message")
+                        .value("Doctor, patient and a future appointment time are required"))
+                .andExpect(jsonPath("$.results[1].status").value(201))
+                .andExpect(jsonPath("$.succeeded").value(1));
+    }
+
+    @Test
+    void oversizedBatchIsRejectedBeforeAnyItemIsLookedAt() throws Exception {
+        String body = IntStream.range(0, 501).mapToObj(i -> item(LocalDateTime.now().minusDays(1)))
+                .collect(Collectors.joining(",", "[", "]"));
+
+        mockMvc.perform(post("/appointments/bulk/token").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(service);
+    }
+
+    private static String item(LocalDateTime time) {
+        return "{\"doctor\":{\"id\":1},\"patient\":{\"id\":" + PATIENT + "},\"appointmentTime\":\"" + time
+                + "\",\"status\":0}";
+    }
+}
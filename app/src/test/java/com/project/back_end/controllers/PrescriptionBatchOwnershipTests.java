@@ -0,0 +1,72 @@
+package com.project.back_end.controllers;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.project.back_end.DTO.AuthenticatedPrincipal;
+import com.project.back_end.models.Prescription;
+import com.project.back_end.repo.AppointmentBatchRepository;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.PrescriptionRepository;
+import com.project.back_end.services.AppointmentService;
+import com.project.back_end.services.AvailabilityIndex;
+import com.project.back_end.services.PrescriptionService;
+import com.project.back_end.services.RequestPrincipal;
+import com.project.back_end.services.Service;
+import com.project.back_end.services.SlotLocks;
+
+// A doctor's batch lookup only reaches Mongo with the ids of the doctor's own appointments
+class PrescriptionBatchOwnershipTests {
+
+    private static final long DOCTOR = 3L;
+
+    private AppointmentRepository appointmentRepository;
+    private PrescriptionRepository prescriptionRepository;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        Service service = mock(Service.class);
+        when(service.validateToken("token", "doctor"))
+                .thenReturn(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new HashMap<>()));
+        RequestPrincipal requestPrincipal = mock(RequestPrincipal.class);
+        when(requestPrincipal.resolve("token", "doctor"))
+                .thenReturn(new AuthenticatedPrincipal("doctor", DOCTOR, "doctor@example.com"));
+        appointmentRepository = mock(AppointmentRepository.class);
+        prescriptionRepository = mock(PrescriptionRepository.class);
+        PrescriptionService prescriptionService = new PrescriptionService(prescriptionRepository);
+        AppointmentService appointmentService = new AppointmentService(appointmentRepository,
+                mock(AppointmentBatchRepository.class), service, requestPrincipal, mock(AvailabilityIndex.class),
+                new SlotLocks(), prescriptionService, Runnable::run, new MockEnvironment());
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new PrescriptionController(prescriptionService, service, appointmentService))
+                .addPlaceholderValue("api.path", "/")
+                .build();
+    }
+
+    @Test
+    void otherDoctorsAppointmentsAreNotLookedUp() throws Exception {
+        when(appointmentRepository.findIdsByIdInAndDoctorId(List.of(4L, 8L, 15L), DOCTOR)).thenReturn(List.of(8L));
+        when(prescriptionRepository.findByAppointmentIdIn(any())).thenReturn(List.<Prescription>of());
+
+        mockMvc.perform(get("/prescription/batch/token").param("appointmentIds", "4,8,15"))
+                .andExpect(status().isOk());
+
+        verify(prescriptionRepository).findByAppointmentIdIn(List.of(8L));
+    }
+}
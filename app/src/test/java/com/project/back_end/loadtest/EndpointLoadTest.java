@@ -0,0 +1,379 @@
+package com.project.back_end.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.project.back_end.repo.PrescriptionRepository;
+import com.project.back_end.services.DoctorDirectoryCache;
+import com.project.back_end.services.DoctorNameIndex;
+import com.project.back_end.services.TokenService;
+
+// Replays a realistic request mix against the running application and prints p50/p99 latency and
+// throughput per endpoint and controller, plus the peak heap in use and the peak number of live
+// platform threads sampled during the run (both include the load clients, which run in this JVM).
+// MySQL is replaced by H2 in MySQL mode and the Mongo prescriptions collection by an in-memory store,
+// so the whole run is offline.
+// Run with: mvn -Ploadtest test
+// To see what virtual threads change, run it twice with more clients than Tomcat's 200 threads and
+// a Mongo round trip to wait on, once with VIRTUAL_THREADS_ENABLED=true:
+//   mvn -Ploadtest test -Dloadtest.concurrency=400 -Dloadtest.mongoLatencyMillis=5
+// The build targets Java 17, where the property has no effect; the virtual-thread run needs the tests
+// started on a Java 21+ runtime, and the report states which mode actually ran.
+@Tag("loadtest")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "spring.jpa.show-sql=false",
+        "spring.autoconfigure.exclude="
+                + "org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration,"
+                + "org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration,"
+                + "org.springframework.boot.autoconfigure.data.mongo.MongoRepositoriesAutoConfiguration" })
+class EndpointLoadTest {
+
+    private static final int DOCTORS = Integer.getInteger("loadtest.doctors", 2_000);
+    private static final int PATIENTS = Integer.getInteger("loadtest.patients", 5_000);
+    private static final int APPOINTMENTS = Integer.getInteger("loadtest.appointments", 20_000);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 32);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("loadtest.durationSeconds", 30));
+    private static final Duration MONGO_LATENCY = Duration.ofMillis(Integer.getInteger("loadtest.mongoLatencyMillis", 0));
+
+    // Seeded appointments fill the next two weeks, bookings go to the two weeks after
+    private static final int SEEDED_DAYS = 14;
+    private static final int FIRST_HOUR = 9;
+    private static final int HOURS = 8;
+    private static final String[] SPECIALTIES = { "cardiologist", "dermatologist", "neurologist", "pediatrician" };
+
+    @TestConfiguration
+    static class OfflineMongo {
+
+        @Bean
+        PrescriptionRepository prescriptionRepository() {
+            return InMemoryPrescriptionRepository.create(MONGO_LATENCY);
+        }
+
+        // Only MongoIndexConfig asks for these; its index creation is a no-op here
+        @Bean
+        MongoTemplate mongoTemplate() {
+            MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+            when(mongoTemplate.indexOps(any(Class.class))).thenReturn(mock(IndexOperations.class));
+            return mongoTemplate;
+        }
+
+        @Bean
+        MongoMappingContext mongoMappingContext() {
+            return new MongoMappingContext();
+        }
+    }
+
+    // One operation of the mix; weights are relative
+    private record Operation(String controller, String endpoint, int weight, RequestFactory request) {
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        HttpRequest next(ThreadLocalRandom random);
+    }
+
+    private static final class Stats {
+        final LongAdder serverErrors = new LongAdder();
+        final List<long[]> chunks = new ArrayList<>();
+
+        synchronized void add(long[] latencies, int count) {
+            chunks.add(Arrays.copyOf(latencies, count));
+        }
+
+        long[] sorted() {
+            long[] all = chunks.stream().flatMapToLong(Arrays::stream).toArray();
+            Arrays.sort(all);
+            return all;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private DoctorDirectoryCache doctorDirectoryCache;
+
+    @Autowired
+    private DoctorNameIndex doctorNameIndex;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    private String[] doctorTokens;
+    private String[] patientTokens;
+
+    @BeforeAll
+    void seed() {
+        LocalDate today = LocalDate.now();
+        List<Object[]> doctors = new ArrayList<>(DOCTORS);
+        List<Object[]> times = new ArrayList<>(DOCTORS * HOURS);
+        for (int i = 1; i <= DOCTORS; i++) {
+            String specialty = SPECIALTIES[i % SPECIALTIES.length];
+            doctors.add(new Object[] { "Doctor " + i, specialty, specialty, "doctor" + i + "@example.com",
+                    "secret1", "0123456789", true, true });
+            for (int hour = FIRST_HOUR; hour < FIRST_HOUR + HOURS; hour++) {
+                times.add(new Object[] { (long) i, String.format("%02d:00-%02d:00", hour, hour + 1) });
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO doctor (name, specialty, specialty_key, email, password, phone, "
+                + "has_morning_slots, has_afternoon_slots) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", doctors);
+        jdbcTemplate.batchUpdate("INSERT INTO doctor_available_times (doctor_id, available_times) VALUES (?, ?)",
+                times);
+
+        List<Object[]> patients = new ArrayList<>(PATIENTS);
+        for (int i = 1; i <= PATIENTS; i++) {
+            patients.add(new Object[] { "Patient " + i, "patient" + i + "@example.com", "secret1", "0123456789",
+                    "Street " + i });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO patient (name, email, password, phone, address) VALUES (?, ?, ?, ?, ?)",
+                patients);
+
+        // Appointment k goes to doctor k % DOCTORS, spread over days and then hours, so no slot repeats
+        List<Object[]> appointments = new ArrayList<>(APPOINTMENTS);
+        for (int k = 0; k < APPOINTMENTS; k++) {
+            int day = 1 + (k / DOCTORS) % SEEDED_DAYS;
+            int hour = FIRST_HOUR + (k / (DOCTORS * SEEDED_DAYS)) % HOURS;
+            appointments.add(new Object[] { (long) (k % DOCTORS) + 1, (long) (k % PATIENTS) + 1,
+                    today.plusDays(day).atTime(hour, 0), 0 });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO appointment (doctor_id, patient_id, appointment_time, status) "
+                + "VALUES (?, ?, ?, ?)", appointments);
+        // The directory snapshot and the name index were loaded at startup, before the rows above existed
+        doctorDirectoryCache.invalidate();
+        doctorNameIndex.reload();
+
+        doctorTokens = new String[DOCTORS];
+        for (int i = 0; i < DOCTORS; i++) {
+            doctorTokens[i] = tokenService.generateToken("doctor" + (i + 1) + "@example.com", "doctor", (long) i + 1);
+        }
+        patientTokens = new String[PATIENTS];
+        for (int i = 0; i < PATIENTS; i++) {
+            patientTokens[i] = tokenService.generateToken("patient" + (i + 1) + "@example.com", "patient",
+                    (long) i + 1);
+        }
+    }
+
+    @Test
+    void replayRequestMix() throws Exception {
+        List<Operation> mix = mix();
+        int totalWeight = mix.stream().mapToInt(Operation::weight).sum();
+        Map<String, Stats> stats = new ConcurrentHashMap<>();
+        mix.forEach(operation -> stats.put(operation.endpoint(), new Stats()));
+
+        // Virtual threads aren't counted by ThreadMXBean, their stacks are part of the heap
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicLong peakHeapBytes = new AtomicLong();
+        threads.resetPeakThreadCount();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(
+                () -> peakHeapBytes.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max), 0, 100,
+                TimeUnit.MILLISECONDS);
+
+        long deadline = System.nanoTime() + DURATION.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(CONCURRENCY);
+        for (int w = 0; w < CONCURRENCY; w++) {
+            workers.execute(() -> drive(mix, totalWeight, stats, deadline));
+        }
+        workers.shutdown();
+        assertThat(workers.awaitTermination(DURATION.toSeconds() + 60, TimeUnit.SECONDS)).isTrue();
+        sampler.shutdownNow();
+
+        report(mix, stats, peakHeapBytes.get(), threads.getPeakThreadCount());
+        for (Operation operation : mix) {
+            Stats endpoint = stats.get(operation.endpoint());
+            long requests = endpoint.sorted().length;
+            assertThat(requests).as(operation.endpoint()).isPositive();
+            assertThat(endpoint.serverErrors.sum()).as(operation.endpoint() + " 5xx").isLessThan(requests / 100 + 1);
+        }
+    }
+
+    private List<Operation> mix() {
+        LocalDate today = LocalDate.now();
+        return List.of(
+                new Operation("DoctorController", "GET /doctor/filter/{name}/{time}/{speciality}", 30,
+                        random -> get("/doctor/filter/" + (random.nextBoolean() ? "null" : "Doctor%20" + random.nextInt(100))
+                                + "/" + (random.nextBoolean() ? "AM" : "PM")
+                                + "/" + SPECIALTIES[random.nextInt(SPECIALTIES.length)])),
+                new Operation("DoctorController", "GET /doctor/availability/{user}/{doctorId}/{date}/{token}", 25,
+                        random -> get("/doctor/availability/patient/" + (random.nextInt(DOCTORS) + 1) + "/"
+                                + today.plusDays(1 + random.nextInt(SEEDED_DAYS)) + "/" + patientToken(random))),
+                new Operation("AppointmentController", "POST /appointments/{token}", 10,
+                        random -> post("/appointments/" + patientToken(random), String.format(
+                                "{\"doctor\":{\"id\":%d},\"patient\":{\"id\":%d},\"appointmentTime\":\"%sT%02d:00:00\",\"status\":0}",
+                                random.nextInt(DOCTORS) + 1, random.nextInt(PATIENTS) + 1,
+                                today.plusDays(SEEDED_DAYS + 1 + random.nextInt(SEEDED_DAYS)),
+                                FIRST_HOUR + random.nextInt(HOURS)))),
+                new Operation("AppointmentController", "GET /appointments/{date}/{patientName}/{token}", 15,
+                        random -> get("/appointments/" + today.plusDays(1 + random.nextInt(SEEDED_DAYS))
+                                + "/null/" + doctorTokens[random.nextInt(DOCTORS)] + "?withPrescriptionFlag=true")),
+                new Operation("PatientController", "GET /patient/{token}", 5,
+                        random -> get("/patient/" + patientToken(random))),
+                new Operation("PatientController", "GET /patient/{id}/{user}/{token}", 10,
+                        random -> {
+                            int patient = random.nextInt(PATIENTS);
+                            return get("/patient/" + (patient + 1) + "/patient/" + patientTokens[patient] + "?limit=20");
+                        }),
+                new Operation("PrescriptionController", "POST /prescription/{token}", 5,
+                        random -> post("/prescription/" + doctorTokens[random.nextInt(DOCTORS)], String.format(
+                                "{\"patientName\":\"Patient %d\",\"appointmentId\":%d,\"medication\":\"Paracetamol\","
+                                        + "\"dosage\":\"500mg\",\"doctorNotes\":\"After meals\"}",
+                                random.nextInt(PATIENTS) + 1, random.nextInt(APPOINTMENTS) + 1))));
+    }
+
+    private void drive(List<Operation> mix, int totalWeight, Map<String, Stats> stats, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<String, long[]> buffers = new TreeMap<>();
+        Map<String, Integer> counts = new TreeMap<>();
+        mix.forEach(operation -> {
+            buffers.put(operation.endpoint(), new long[1 << 16]);
+            counts.put(operation.endpoint(), 0);
+        });
+
+        while (System.nanoTime() < deadline) {
+            Operation operation = pick(mix, totalWeight, random);
+            HttpRequest request = operation.request().next(random);
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (Exception e) {
+                status = 599;
+            }
+            long elapsed = System.nanoTime() - start;
+
+            String endpoint = operation.endpoint();
+            if (status >= 500) {
+                stats.get(endpoint).serverErrors.increment();
+            }
+            long[] buffer = buffers.get(endpoint);
+            int count = counts.get(endpoint);
+            if (count == buffer.length) {
+                stats.get(endpoint).add(buffer, count);
+                count = 0;
+            }
+            buffer[count] = elapsed;
+            counts.put(endpoint, count + 1);
+        }
+        buffers.forEach((endpoint, buffer) -> stats.get(endpoint).add(buffer, counts.get(endpoint)));
+    }
+
+    private static Operation pick(List<Operation> mix, int totalWeight, ThreadLocalRandom random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Operation operation : mix) {
+            ticket -= operation.weight();
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+
+    private void report(List<Operation> mix, Map<String, Stats> stats, long peakHeapBytes, int peakThreads) {
+        double seconds = DURATION.toMillis() / 1000.0;
+        System.out.printf("%nLoad test: %d doctors, %d patients, %d appointments, %d clients, %.0f s%n",
+                DOCTORS, PATIENTS, APPOINTMENTS, CONCURRENCY, seconds);
+        System.out.printf("Java %d, virtual threads %s, Mongo latency %d ms%n", Runtime.version().feature(),
+                virtualThreads && Runtime.version().feature() >= 21 ? "on" : "off", MONGO_LATENCY.toMillis());
+        System.out.printf("Peak heap used %d MB, peak live platform threads %d%n", peakHeapBytes / (1024 * 1024),
+                peakThreads);
+        System.out.printf("%-24s %-60s %9s %9s %9s %9s %6s%n", "controller", "endpoint", "requests", "req/s",
+                "p50 ms", "p99 ms", "5xx");
+
+        Map<String, List<long[]>> byController = new TreeMap<>();
+        for (Operation operation : mix) {
+            Stats endpoint = stats.get(operation.endpoint());
+            long[] latencies = endpoint.sorted();
+            byController.computeIfAbsent(operation.controller(), key -> new ArrayList<>()).add(latencies);
+            print(operation.controller(), operation.endpoint(), latencies, seconds, endpoint.serverErrors.sum());
+        }
+        for (Map.Entry<String, List<long[]>> controller : byController.entrySet()) {
+            long[] latencies = controller.getValue().stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            print(controller.getKey(), "(all endpoints)", latencies, seconds, -1);
+        }
+    }
+
+    private static void print(String controller, String endpoint, long[] sortedLatencies, double seconds,
+            long serverErrors) {
+        System.out.printf("%-24s %-60s %9d %9.1f %9.2f %9.2f %6s%n", controller, endpoint, sortedLatencies.length,
+                sortedLatencies.length / seconds, percentile(sortedLatencies, 0.50), percentile(sortedLatencies, 0.99),
+                serverErrors < 0 ? "" : Long.toString(serverErrors));
+    }
+
+    private static double percentile(long[] sortedNanos, double quantile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private String patientToken(ThreadLocalRandom random) {
+        return patientTokens[random.nextInt(PATIENTS)];
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+package com.project.back_end.loadtest;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.dao.DuplicateKeyException;
+
+import com.project.back_end.models.Prescription;
+import com.project.back_end.repo.PrescriptionRepository;
+
+// Stand-in for the Mongo prescriptions collection: one document per appointmentId, like the
+// unique index, and only the repository methods the application calls. Each call can be made to
+// block for a round trip's worth of time, so that waiting on Mongo shows up in the measurements.
+final class InMemoryPrescriptionRepository {
+
+    private InMemoryPrescriptionRepository() {
+    }
+
+    static PrescriptionRepository create(Duration latency) {
+        Map<Long, Prescription> byAppointment = new ConcurrentHashMap<>();
+        return (PrescriptionRepository) Proxy.newProxyInstance(PrescriptionRepository.class.getClassLoader(),
+                new Class<?>[] { PrescriptionRepository.class }, (proxy, method, args) -> {
+                    if (!latency.isZero() && method.getDeclaringClass() != Object.class) {
+                        Thread.sleep(latency.toMillis());
+                    }
+                    switch (method.getName()) {
+                        case "insert": {
+                            Prescription prescription = (Prescription) args[0];
+                            if (byAppointment.putIfAbsent(prescription.getAppointmentId(), prescription) != null) {
+                                throw new DuplicateKeyException("appointmentId " + prescription.getAppointmentId());
+                            }
+                            return prescription;
+                        }
+                        case "findByAppointmentId": {
+                            Prescription prescription = byAppointment.get((Long) args[0]);
+                            return prescription == null ? List.of() : List.of(prescription);
+                        }
+                        case "findByAppointmentIdIn":
+                        case "findAppointmentIdsByAppointmentIdIn": {
+                            List<Prescription> found = new ArrayList<>();
+                            for (Object id : (Collection<?>) args[0]) {
+                                Prescription prescription = byAppointment.get((Long) id);
+                                if (prescription != null) {
+                                    found.add(prescription);
+                                }
+                            }
+                            return found;
+                        }
+                        case "count":
+                            return (long) byAppointment.size();
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "InMemoryPrescriptionRepository";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,61 @@
+package com.project.back_end.repo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.project.back_end.config.QueryBudget;
+import com.project.back_end.config.QueryBudgetExtension;
+import com.project.back_end.config.SqlStatementCounter;
+import com.project.back_end.models.Doctor;
+
+// The directory and filter reads behind the doctor endpoints, held to the same budgets as the
+// endpoints; touching availableTimes must not add a statement per doctor
+@DataJpaTest(properties = { "spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop" })
+@ExtendWith(QueryBudgetExtension.class)
+@Import(SqlStatementCounter.class)
+class DoctorDirectoryQueryBudgetTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 25; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setName("Doctor " + i);
+            doctor.setSpecialty("Cardiologist");
+            doctor.setEmail("doctor" + i + "@example.com");
+            doctor.setPassword("secret1");
+            doctor.setPhone("0123456789");
+            doctor.setAvailableTimes(new ArrayList<>(List.of("09:00-10:00", "14:00-15:00")));
+            doctor.refreshFacets();
+            entityManager.persist(doctor);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @QueryBudget(sql = 1)
+    void directoryLoad() {
+        doctorRepository.findAllWithAvailableTimes().forEach(doc -> doc.getAvailableTimes().size());
+    }
+
+    @Test
+    @QueryBudget(sql = 1)
+    void filterBySpecialtyAndDayPart() {
+        doctorRepository.findBySpecialtyKeyAndHasMorningSlotsTrue("cardiologist")
+                .forEach(doc -> doc.getAvailableTimes().size());
+    }
+}
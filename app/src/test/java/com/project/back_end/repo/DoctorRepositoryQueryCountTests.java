@@ -0,0 +1,89 @@
+package com.project.back_end.repo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.project.back_end.models.Doctor;
+
+// The doctor filter queries must load availableTimes in the same statement,
+// whatever the number of matching doctors
+@DataJpaTest(properties = { "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop" })
+class DoctorRepositoryQueryCountTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 5, 25 })
+    void filterQueriesIssueOneStatement(int doctors) {
+        List<Long> ids = seed(doctors);
+
+        assertOneStatement(doctors, () -> doctorRepository.findAllWithAvailableTimes());
+        assertOneStatement(doctors, () -> doctorRepository.findByIdIn(ids));
+        assertOneStatement(doctors, () -> doctorRepository.findBySpecialtyKey("cardiologist"));
+        assertOneStatement(doctors, () -> doctorRepository.findByIdInAndSpecialtyKey(ids, "cardiologist"));
+        assertOneStatement(doctors, () -> doctorRepository.findByHasMorningSlotsTrue());
+        assertOneStatement(doctors, () -> doctorRepository.findByHasAfternoonSlotsTrue());
+        assertOneStatement(doctors, () -> doctorRepository.findByIdInAndHasMorningSlotsTrue(ids));
+        assertOneStatement(doctors, () -> doctorRepository.findByIdInAndHasAfternoonSlotsTrue(ids));
+        assertOneStatement(doctors, () -> doctorRepository.findBySpecialtyKeyAndHasMorningSlotsTrue("cardiologist"));
+        assertOneStatement(doctors,
+                () -> doctorRepository.findBySpecialtyKeyAndHasAfternoonSlotsTrue("cardiologist"));
+        assertOneStatement(doctors,
+                () -> doctorRepository.findByIdInAndSpecialtyKeyAndHasMorningSlotsTrue(ids, "cardiologist"));
+        assertOneStatement(doctors,
+                () -> doctorRepository.findByIdInAndSpecialtyKeyAndHasAfternoonSlotsTrue(ids, "cardiologist"));
+    }
+
+    private void assertOneStatement(int expectedDoctors, Supplier<List<Doctor>> query) {
+        entityManager.clear();
+        statistics.clear();
+
+        List<Doctor> result = query.get();
+        result.forEach(doc -> doc.getAvailableTimes().size());
+
+        assertThat(result).hasSize(expectedDoctors);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private List<Long> seed(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setName("Doctor " + i);
+            doctor.setSpecialty("Cardiologist");
+            doctor.setEmail("doctor" + i + "@example.com");
+            doctor.setPassword("secret1");
+            doctor.setPhone("0123456789");
+            doctor.setAvailableTimes(new ArrayList<>(List.of("09:00-10:00", "10:00-11:00", "14:00-15:00")));
+            doctor.refreshFacets();
+            ids.add(entityManager.persistAndGetId(doctor, Long.class));
+        }
+        entityManager.flush();
+        return ids;
+    }
+}
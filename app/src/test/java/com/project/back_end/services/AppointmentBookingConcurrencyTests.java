@@ -0,0 +1,159 @@
+package com.project.back_end.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentBatchRepository;
+import com.project.back_end.repo.AppointmentRepository;
+
+// Booking runs against an in-memory stand-in for the availability index and the table
+class AppointmentBookingConcurrencyTests {
+
+    private static final LocalDateTime SLOT = LocalDate.now().plusDays(1).atTime(9, 0);
+
+    private final Set<String> booked = ConcurrentHashMap.newKeySet();
+
+    private AppointmentRepository appointmentRepository;
+    private SlotLocks slotLocks;
+    private AppointmentService appointmentService;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        Service service = mock(Service.class);
+        AvailabilityIndex availabilityIndex = mock(AvailabilityIndex.class);
+        when(service.validateAppointment(any())).thenAnswer(invocation -> {
+            Appointment appointment = invocation.getArgument(0);
+            return booked.contains(key(appointment.getDoctor().getId(), appointment.getAppointmentTime())) ? 0 : 1;
+        });
+        doAnswer(invocation -> booked.add(key(invocation.getArgument(0), invocation.getArgument(1))))
+                .when(availabilityIndex).markBooked(any(), any());
+        slotLocks = new SlotLocks();
+        appointmentService = new AppointmentService(appointmentRepository,
+                mock(AppointmentBatchRepository.class), service, mock(RequestPrincipal.class),
+                availabilityIndex, slotLocks, mock(PrescriptionService.class), Runnable::run, new MockEnvironment());
+        pool = Executors.newFixedThreadPool(16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void racingPatientsGetOneBookingPerSlot() throws Exception {
+        when(appointmentRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            Thread.sleep(5);
+            return invocation.getArgument(0);
+        });
+
+        List<Callable<Integer>> bookings = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            bookings.add(() -> appointmentService.bookAppointment(appointment(1L, SLOT)));
+        }
+        List<Integer> results = new ArrayList<>();
+        for (Future<Integer> result : pool.invokeAll(bookings)) {
+            results.add(result.get());
+        }
+
+        assertThat(results).containsOnlyOnce(1).containsOnly(0, 1);
+        verify(appointmentRepository, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    void distinctDoctorsBookInParallel() throws Exception {
+        List<Long> doctorIds = doctorsOnDistinctStripes(4);
+        // Every save waits for the other three; serialized bookings would time out here
+        CyclicBarrier allSaving = new CyclicBarrier(doctorIds.size());
+        when(appointmentRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            allSaving.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+
+        List<Callable<Integer>> bookings = new ArrayList<>();
+        for (Long doctorId : doctorIds) {
+            bookings.add(() -> appointmentService.bookAppointment(appointment(doctorId, SLOT)));
+        }
+        for (Future<Integer> result : pool.invokeAll(bookings, 10, TimeUnit.SECONDS)) {
+            assertThat(result.get()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void lostRaceOnTheSlotKeyMarksTheSlotBooked() {
+        when(appointmentRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("insert",
+                new SQLIntegrityConstraintViolationException(
+                        "Duplicate entry '1-2030-01-01 09:00:00' for key 'appointment.uk_appointment_doctor_time'")));
+
+        assertThat(appointmentService.bookAppointment(appointment(1L, SLOT))).isEqualTo(0);
+        assertThat(booked).containsExactly(key(1L, SLOT));
+    }
+
+    @Test
+    void otherIntegrityErrorsLeaveTheSlotFree() {
+        when(appointmentRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("insert",
+                new SQLIntegrityConstraintViolationException(
+                        "Cannot add or update a child row: a foreign key constraint fails (fk_appointment_patient)")));
+
+        assertThat(appointmentService.bookAppointment(appointment(1L, SLOT))).isEqualTo(-2);
+        assertThat(booked).isEmpty();
+    }
+
+    private List<Long> doctorsOnDistinctStripes(int count) {
+        List<Long> doctorIds = new ArrayList<>();
+        Set<Integer> stripes = new HashSet<>();
+        for (long id = 1; doctorIds.size() < count; id++) {
+            if (stripes.add(slotLocks.stripe(id, SLOT.toLocalDate()))) {
+                doctorIds.add(id);
+            }
+        }
+        return doctorIds;
+    }
+
+    private static Appointment appointment(Long doctorId, LocalDateTime time) {
+        Doctor doctor = new Doctor();
+        doctor.setId(doctorId);
+        Patient patient = new Patient();
+        patient.setId(100L);
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        appointment.setAppointmentTime(time);
+        return appointment;
+    }
+
+    private static String key(Long doctorId, LocalDateTime time) {
+        return doctorId + "@" + time;
+    }
+}
@@ -0,0 +1,86 @@
+package com.project.back_end.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.project.back_end.DTO.AuthenticatedPrincipal;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentBatchRepository;
+import com.project.back_end.repo.AppointmentRepository;
+
+// The bulk endpoints only write appointments of the patient behind the token
+class AppointmentBulkOwnershipTests {
+
+    private static final LocalDateTime SLOT = LocalDate.now().plusDays(1).atTime(9, 0);
+    private static final long CALLER = 100L;
+    private static final long OTHER = 200L;
+
+    private AppointmentRepository appointmentRepository;
+    private AppointmentBatchRepository appointmentBatchRepository;
+    private AppointmentService appointmentService;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        appointmentBatchRepository = mock(AppointmentBatchRepository.class);
+        Service service = mock(Service.class);
+        when(service.validateAppointment(any())).thenReturn(1);
+        RequestPrincipal requestPrincipal = mock(RequestPrincipal.class);
+        when(requestPrincipal.resolve("token", "patient"))
+                .thenReturn(new AuthenticatedPrincipal("patient", CALLER, "caller@example.com"));
+        when(appointmentBatchRepository.insertAll(anyList()))
+                .thenAnswer(invocation -> new int[((List<?>) invocation.getArgument(0)).size()]);
+        when(appointmentBatchRepository.updateAll(anyList()))
+                .thenAnswer(invocation -> new int[((List<?>) invocation.getArgument(0)).size()]);
+        appointmentService = new AppointmentService(appointmentRepository, appointmentBatchRepository, service,
+                requestPrincipal, mock(AvailabilityIndex.class), new SlotLocks(), mock(PrescriptionService.class),
+                Runnable::run, new MockEnvironment());
+    }
+
+    @Test
+    void bookingForAnotherPatientIsRejected() {
+        int[] results = appointmentService.bookAppointments(
+                List.of(appointment(null, 1L, CALLER, SLOT), appointment(null, 1L, OTHER, SLOT.plusHours(1))),
+                "token");
+
+        assertThat(results[1]).isEqualTo(-5);
+        assertThat(results[0]).isNotEqualTo(-5);
+    }
+
+    @Test
+    void reschedulingAnotherPatientsAppointmentIsRejectedWhateverTheBodySays() {
+        Appointment stored = appointment(7L, 1L, OTHER, SLOT);
+        when(appointmentRepository.findByIdIn(any())).thenReturn(List.of(stored));
+
+        int[] results = appointmentService.updateAppointments(List.of(appointment(7L, 1L, CALLER, SLOT.plusHours(2))),
+                "token");
+
+        assertThat(results).containsExactly(-5);
+    }
+
+    private static Appointment appointment(Long id, Long doctorId, Long patientId, LocalDateTime time) {
+        Doctor doctor = new Doctor();
+        doctor.setId(doctorId);
+        Patient patient = new Patient();
+        patient.setId(patientId);
+        Appointment appointment = new Appointment();
+        appointment.setId(id);
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        appointment.setAppointmentTime(time);
+        return appointment;
+    }
+}
@@ -0,0 +1,98 @@
+package com.project.back_end.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.AuthenticatedPrincipal;
+import com.project.back_end.models.Prescription;
+import com.project.back_end.repo.AppointmentBatchRepository;
+import com.project.back_end.repo.AppointmentRepository;
+
+// The doctor's day with withPrescriptionFlag, and the batch lookup with its appointments, on platform
+// threads: one MySQL read, then one Mongo query about the rows it returned
+class AppointmentDayViewTests {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+    private static final long DOCTOR = 1L;
+
+    private AppointmentRepository appointmentRepository;
+    private PrescriptionService prescriptionService;
+    private AppointmentService appointmentService;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        prescriptionService = mock(PrescriptionService.class);
+        RequestPrincipal requestPrincipal = mock(RequestPrincipal.class);
+        when(requestPrincipal.resolve("token", "doctor"))
+                .thenReturn(new AuthenticatedPrincipal("doctor", DOCTOR, "doctor@example.com"));
+        appointmentService = new AppointmentService(appointmentRepository, mock(AppointmentBatchRepository.class),
+                mock(Service.class), requestPrincipal, mock(AvailabilityIndex.class), new SlotLocks(),
+                prescriptionService, task -> {
+                    throw new AssertionError("Nothing runs on the task executor without virtual threads");
+                }, new MockEnvironment());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flagsTheRowsLeftAfterTheNameFilter() {
+        when(appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(eq(DOCTOR), any(), any()))
+                .thenReturn(new ArrayList<>(List.of(appointment(10L, "Ann"), appointment(11L, "Anna"),
+                        appointment(12L, "Bob"))));
+        when(prescriptionService.withPrescription(List.of(10L, 11L))).thenReturn(Set.of(11L));
+
+        Map<String, Object> day = appointmentService.getAppointment("ann", DAY, "token", true);
+
+        List<AppointmentDTO> appointments = (List<AppointmentDTO>) day.get("appointments");
+        assertThat(appointments).extracting(AppointmentDTO::getId).containsExactly(10L, 11L);
+        assertThat(appointments).extracting(AppointmentDTO::getHasPrescription).containsExactly(false, true);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void leavesMongoAloneWithoutTheFlag() {
+        when(appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(eq(DOCTOR), any(), any()))
+                .thenReturn(new ArrayList<>(List.of(appointment(10L, "Ann"))));
+
+        Map<String, Object> day = appointmentService.getAppointment("null", DAY, "token", false);
+
+        assertThat((List<AppointmentDTO>) day.get("appointments")).extracting(AppointmentDTO::getHasPrescription)
+                .containsOnlyNulls();
+        verifyNoInteractions(prescriptionService);
+    }
+
+    @Test
+    void batchAsksMongoOnlyAboutTheDoctorsAppointments() {
+        when(appointmentRepository.findByIdInAndDoctorId(List.of(10L, 20L), DOCTOR))
+                .thenReturn(List.of(appointment(10L, "Ann")));
+        Prescription prescription = new Prescription();
+        prescription.setAppointmentId(10L);
+        when(prescriptionService.findByAppointmentIds(List.of(10L))).thenReturn(Map.of(10L, prescription));
+
+        Map<String, Object> batch = appointmentService.getAppointmentsWithPrescriptions(List.of(10L, 20L), "token");
+
+        assertThat(batch.get("prescriptions")).isEqualTo(Map.of(10L, prescription));
+        verify(prescriptionService).findByAppointmentIds(List.of(10L));
+    }
+
+    private static AppointmentDTO appointment(Long id, String patientName) {
+        return new AppointmentDTO(id, DOCTOR, "Doctor", 100L, patientName, "patient@example.com", "0123456789",
+                "Street 1", DAY.atTime(9, 0), 0);
+    }
+}
@@ -0,0 +1,108 @@
+package com.project.back_end.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+
+class AvailabilityIndexTests {
+
+    private static final long DOCTOR_ID = 7L;
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+    private AppointmentRepository appointmentRepository;
+    private AvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+        appointmentRepository = mock(AppointmentRepository.class);
+        Doctor doctor = new Doctor();
+        doctor.setId(DOCTOR_ID);
+        doctor.setAvailableTimes(List.of("09:00-10:00", "14:00-15:00"));
+        when(doctorRepository.findWithAvailableTimesById(DOCTOR_ID)).thenReturn(Optional.of(doctor));
+        index = new AvailabilityIndex(doctorRepository, appointmentRepository, new DoctorVersions());
+    }
+
+    @Test
+    void rangeReadsItsDaysWithOneQuery() {
+        when(appointmentRepository.findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(any(), any(), any()))
+                .thenReturn(List.of(DAY.plusDays(1).atTime(9, 0)));
+
+        Map<LocalDate, List<String>> free = index.freeSlots(DOCTOR_ID, DAY, DAY.plusDays(2));
+
+        assertThat(free).containsExactly(
+                Map.entry(DAY, List.of("09:00-10:00", "14:00-15:00")),
+                Map.entry(DAY.plusDays(1), List.of("14:00-15:00")),
+                Map.entry(DAY.plusDays(2), List.of("09:00-10:00", "14:00-15:00")));
+        verify(appointmentRepository, times(1)).findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(DOCTOR_ID,
+                DAY.atStartOfDay(), DAY.plusDays(2).atTime(LocalTime.MAX));
+
+        // Every day of the range is cached now
+        index.freeSlots(DOCTOR_ID, DAY.plusDays(1));
+        verify(appointmentRepository, times(1)).findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(any(), any(),
+                any());
+    }
+
+    @Test
+    void rangeSkipsDaysAlreadyCached() {
+        when(appointmentRepository.findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(any(), any(), any()))
+                .thenReturn(List.of());
+        index.freeSlots(DOCTOR_ID, DAY);
+
+        index.freeSlots(DOCTOR_ID, DAY, DAY.plusDays(2));
+
+        verify(appointmentRepository).findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(DOCTOR_ID,
+                DAY.plusDays(1).atStartOfDay(), DAY.plusDays(2).atTime(LocalTime.MAX));
+    }
+
+    @Test
+    void bookingDuringARangeLoadIsNotLost() {
+        LocalDateTime booking = DAY.atTime(9, 0);
+        // The booking commits after the range query read the day, and is marked while that load runs
+        when(appointmentRepository.findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    index.markBooked(DOCTOR_ID, booking);
+                    return List.of();
+                })
+                .thenReturn(List.of(booking));
+
+        index.freeSlots(DOCTOR_ID, DAY, DAY.plusDays(1));
+
+        assertThat(index.freeSlots(DOCTOR_ID, DAY)).containsExactly("14:00-15:00");
+        verify(appointmentRepository).findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(eq(DOCTOR_ID),
+                eq(DAY.atStartOfDay()), eq(DAY.atTime(LocalTime.MAX)));
+    }
+
+    @Test
+    void cachedBookedSlotIsReadAgainBeforeRefusing() {
+        LocalDateTime booking = DAY.atTime(9, 0);
+        // Booked when the day was loaded, cancelled on another instance since
+        when(appointmentRepository.findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(any(), any(), any()))
+                .thenReturn(List.of(booking))
+                .thenReturn(List.of());
+        index.freeSlots(DOCTOR_ID, DAY);
+
+        assertThat(index.isFree(DOCTOR_ID, booking)).isTrue();
+        assertThat(index.isFree(DOCTOR_ID, DAY.atTime(14, 0))).isTrue();
+        verify(appointmentRepository, times(2)).findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(any(), any(),
+                any());
+    }
+}
@@ -0,0 +1,77 @@
+package com.project.back_end.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+
+class DoctorNameIndexTests {
+
+    private DoctorRepository doctorRepository;
+    private DoctorNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        doctorRepository = mock(DoctorRepository.class);
+        index = new DoctorNameIndex(doctorRepository, Runnable::run);
+    }
+
+    @Test
+    void reloadSeesOtherWritersAndKeepsTheWritesMadeWhileReading() {
+        when(doctorRepository.findIdsAndNames()).thenReturn(rows(new Object[] { 1L, "Dr. Anna Smith" }));
+        index.warmUp();
+
+        // Doctor 3 was added by another instance; doctor 2 is saved here while the reload reads MySQL
+        when(doctorRepository.findIdsAndNames()).thenAnswer(invocation -> {
+            index.put(2L, "Dr. Hannah Lee");
+            return rows(new Object[] { 1L, "Dr. Anna Smith" }, new Object[] { 3L, "Dr. Annabel Jones" });
+        });
+        index.reload();
+
+        assertThat(index.search("ann")).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void namesMatchingTooManyDoctorsFilterTheQueryWithoutTheName() {
+        List<Object[]> rows = new ArrayList<>();
+        List<Doctor> cardiologists = new ArrayList<>();
+        for (long id = 1; id <= DoctorNameIndex.MAX_IDS_PER_QUERY + 1; id++) {
+            rows.add(new Object[] { id, "Dr. Doctor " + id });
+            if (id % 2 == 0) {
+                Doctor doctor = new Doctor();
+                doctor.setId(id);
+                cardiologists.add(doctor);
+            }
+        }
+        rows.add(new Object[] { 1_000L, "Dr. Unrelated" });
+        when(doctorRepository.findIdsAndNames()).thenReturn(rows);
+        Doctor unrelated = new Doctor();
+        unrelated.setId(1_000L);
+        cardiologists.add(unrelated);
+        when(doctorRepository.findBySpecialtyKey(Doctor.normalizeSpecialty("Cardiologist"))).thenReturn(cardiologists);
+        DoctorService doctorService = new DoctorService(doctorRepository, mock(AppointmentRepository.class),
+                mock(TokenService.class), mock(AvailabilityIndex.class), mock(DoctorDirectoryCache.class), index);
+
+        Map<String, Object> found = doctorService.filterDoctorByNameAndSpecility("doctor", "Cardiologist");
+
+        assertThat(found.get("doctors")).asList().hasSize(cardiologists.size() - 1).doesNotContain(unrelated);
+        verify(doctorRepository, never()).findByIdInAndSpecialtyKey(any(), any());
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return List.of(rows);
+    }
+}
@@ -0,0 +1,38 @@
+package com.project.back_end.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class DoctorVersionsTests {
+
+    private final DoctorVersions versions = new DoctorVersions();
+
+    @Test
+    void appointmentWritesOnlyChangeAvailability() {
+        DoctorVersions.Version directory = versions.directory();
+        DoctorVersions.Version availability = versions.availability();
+
+        versions.appointmentsChanged();
+
+        assertThat(versions.directory()).isEqualTo(directory);
+        assertThat(versions.availability().etag()).isNotEqualTo(availability.etag());
+    }
+
+    @Test
+    void doctorWritesChangeBoth() {
+        DoctorVersions.Version directory = versions.directory();
+        DoctorVersions.Version availability = versions.availability();
+
+        versions.doctorsChanged();
+
+        assertThat(versions.directory().etag()).isNotEqualTo(directory.etag());
+        assertThat(versions.availability().etag()).isNotEqualTo(availability.etag());
+    }
+
+    @Test
+    void anotherInstanceNeverRepeatsATag() throws InterruptedException {
+        Thread.sleep(2);
+        assertThat(new DoctorVersions().directory().etag()).isNotEqualTo(versions.directory().etag());
+    }
+}
@@ -0,0 +1,94 @@
+package com.project.back_end.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.project.back_end.DTO.OpenSlot;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.TimeSlot;
+import com.project.back_end.repo.AppointmentRepository;
+
+class EarliestSlotSearchTests {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 2);
+    private static final LocalDateTime NOW = TODAY.atTime(9, 30);
+    private static final int ANY_TIME = TimeSlot.MORNING | TimeSlot.AFTERNOON;
+
+    private final List<Object[]> appointments = new ArrayList<>();
+    private AppointmentRepository appointmentRepository;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        when(appointmentRepository.findDoctorIdsAndAppointmentTimes(any(), any(), any())).thenReturn(appointments);
+    }
+
+    @Test
+    void mergesDoctorsInTimeOrderSkippingBookedAndPastSlots() {
+        Doctor early = doctor(1L, "11:00-12:00", "09:00-10:00");
+        Doctor late = doctor(2L, "10:00-11:00", "15:00-16:00");
+        appointments.add(new Object[] { 2L, TODAY.atTime(10, 0) });
+
+        List<OpenSlot> slots = search(List.of(early, late)).first(4, ANY_TIME);
+
+        assertThat(slots).extracting(OpenSlot::doctorId, OpenSlot::appointmentTime).containsExactly(
+                tuple(1L, TODAY.atTime(11, 0)),
+                tuple(2L, TODAY.atTime(15, 0)),
+                tuple(1L, TODAY.plusDays(1).atTime(9, 0)),
+                tuple(2L, TODAY.plusDays(1).atTime(10, 0)));
+        assertThat(slots.get(0).slot()).isEqualTo("11:00-12:00");
+    }
+
+    @Test
+    void keepsOnlyTheAskedHalfOfTheDay() {
+        Doctor doctor = doctor(1L, "09:00-10:00", "14:00-15:00");
+
+        List<OpenSlot> slots = search(List.of(doctor)).first(2, TimeSlot.AFTERNOON);
+
+        assertThat(slots).extracting(OpenSlot::appointmentTime)
+                .containsExactly(TODAY.atTime(14, 0), TODAY.plusDays(1).atTime(14, 0));
+    }
+
+    @Test
+    void readsOnlyTheWindowsItNeeds() {
+        search(List.of(doctor(1L, "14:00-15:00"))).first(3, ANY_TIME);
+
+        verify(appointmentRepository, times(1)).findDoctorIdsAndAppointmentTimes(any(), any(), any());
+    }
+
+    @Test
+    void stopsAtTheHorizon() {
+        Doctor doctor = doctor(1L, "14:00-15:00");
+        for (int day = 0; day < 28; day++) {
+            appointments.add(new Object[] { 1L, TODAY.plusDays(day).atTime(14, 0) });
+        }
+
+        assertThat(search(List.of(doctor)).first(1, ANY_TIME)).isEmpty();
+        verify(appointmentRepository, times(4)).findDoctorIdsAndAppointmentTimes(any(), any(), any());
+    }
+
+    private EarliestSlotSearch search(List<Doctor> doctors) {
+        return new EarliestSlotSearch(appointmentRepository, doctors, NOW, 28, 7);
+    }
+
+    private static Doctor doctor(Long id, String... times) {
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        doctor.setName("Dr " + id);
+        doctor.setAvailableTimes(List.of(times));
+        return doctor;
+    }
+}
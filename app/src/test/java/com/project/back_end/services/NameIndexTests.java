@@ -0,0 +1,51 @@
+package com.project.back_end.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NameIndexTests {
+
+    private NameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NameIndex();
+        index.put(1L, "Dr. Anna Smith");
+        index.put(2L, "Dr. Hannah Lee");
+        index.put(3L, "Dr. Bcabc Jones");
+    }
+
+    @Test
+    void findsSubstringsIgnoringCase() {
+        assertThat(index.search("ANN")).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("nna ")).containsExactly(1L);
+        assertThat(index.search("smith")).containsExactly(1L);
+        assertThat(index.search("dr.")).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void checksCandidatesAgainstTheWholeName() {
+        // "bcabc" holds both trigrams of "abca" but not the query itself
+        assertThat(index.search("abca")).isEmpty();
+        assertThat(index.search("zzz")).isEmpty();
+    }
+
+    @Test
+    void shortQueriesScanTheNames() {
+        assertThat(index.search("h")).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("")).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(index.search("  ")).isEmpty();
+    }
+
+    @Test
+    void renamesAndRemovalsReplaceTheOldName() {
+        index.put(1L, "Dr. Maria Garcia");
+        index.remove(2L);
+
+        assertThat(index.search("ann")).isEmpty();
+        assertThat(index.search("garc")).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(2);
+    }
+}
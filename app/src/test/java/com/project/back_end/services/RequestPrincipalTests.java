@@ -0,0 +1,16 @@
+package com.project.back_end.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class RequestPrincipalTests {
+
+    @Test
+    void readsTheBearerToken() {
+        assertThat(RequestPrincipal.bearerToken("Bearer abc.def")).isEqualTo("abc.def");
+        assertThat(RequestPrincipal.bearerToken("bearer abc")).isEqualTo("abc");
+        assertThat(RequestPrincipal.bearerToken("Basic dXNlcg==")).isNull();
+        assertThat(RequestPrincipal.bearerToken(null)).isNull();
+    }
+}
@@ -0,0 +1,79 @@
+package com.project.back_end.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.project.back_end.repo.AdminRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+
+class TokenServiceTests {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private PatientRepository patientRepository;
+    private TokenService tokenService;
+
+    @BeforeEach
+    void setUp() {
+        patientRepository = mock(PatientRepository.class);
+        tokenService = new TokenService(SECRET, mock(AdminRepository.class), mock(DoctorRepository.class),
+                patientRepository);
+    }
+
+    @Test
+    void repeatedValidationLooksUpTheAccountOnce() {
+        when(patientRepository.existsById(7L)).thenReturn(true);
+        String token = tokenService.generateToken("jane@example.com", "patient", 7L);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(tokenService.validateToken(token, "patient")).isTrue();
+        }
+
+        verify(patientRepository, times(1)).existsById(7L);
+        assertThat(tokenService.resolve(token, "patient").id()).isEqualTo(7L);
+        assertThat(tokenService.resolve(token).role()).isEqualTo("patient");
+    }
+
+    @Test
+    void evictedPrincipalIsLookedUpAgain() {
+        when(patientRepository.existsById(7L)).thenReturn(true);
+        String token = tokenService.generateToken("jane@example.com", "patient", 7L);
+        tokenService.validateToken(token, "patient");
+
+        tokenService.evictPrincipal("patient", 7L);
+        when(patientRepository.existsById(7L)).thenReturn(false);
+
+        assertThat(tokenService.validateToken(token, "patient")).isFalse();
+        verify(patientRepository, times(2)).existsById(7L);
+    }
+
+    @Test
+    void lookupRacingAnEvictionIsNotCached() {
+        String token = tokenService.generateToken("jane@example.com", "patient", 7L);
+        // The account is deleted and evicted while its lookup is in flight
+        when(patientRepository.existsById(7L)).thenAnswer(invocation -> {
+            tokenService.evictPrincipal("patient", 7L);
+            return true;
+        });
+        tokenService.validateToken(token, "patient");
+
+        when(patientRepository.existsById(7L)).thenReturn(false);
+
+        assertThat(tokenService.validateToken(token, "patient")).isFalse();
+        verify(patientRepository, times(2)).existsById(7L);
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = tokenService.generateToken("jane@example.com", "patient", 7L);
+
+        assertThat(tokenService.validateToken(token + "x", "patient")).isFalse();
+    }
+}